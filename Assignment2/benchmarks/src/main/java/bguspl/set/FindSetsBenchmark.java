@@ -0,0 +1,91 @@
+package bguspl.set;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Compares the completion based findSets with the combination enumerator it replaced, on the full deck and on a
+ * 12-card table. It is in the game's package because the enumerator (findSetsByCombinations) is package-private.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FindSetsBenchmark {
+
+    @Param({"3", "4"})
+    public int featureSize;
+
+    @Param({"3", "4"})
+    public int featureCount;
+
+    private UtilImpl util;
+    private List<Integer> deck;
+    private List<Integer> table;
+
+    @Setup
+    public void setup() {
+        Properties properties = new Properties();
+        properties.put("LogLevel", "OFF");
+        properties.put("FeatureSize", Integer.toString(featureSize));
+        properties.put("FeatureCount", Integer.toString(featureCount));
+        Logger logger = Logger.getLogger("SetGameBenchmarkLogger");
+        logger.setUseParentHandlers(false);
+        Config config = new Config(logger, properties);
+        util = new UtilImpl(config);
+
+        deck = IntStream.range(0, config.deckSize).boxed().collect(Collectors.toList());
+        Collections.shuffle(deck, new Random(0));
+        table = deck.subList(0, Math.min(12, deck.size()));
+    }
+
+    @Benchmark
+    public List<int[]> deckFirst_Combinations() {
+        return util.findSetsByCombinations(deck, 1);
+    }
+
+    @Benchmark
+    public List<int[]> deckFirst_Completion() {
+        return util.findSets(deck, 1);
+    }
+
+    @Benchmark
+    public List<int[]> deckAll_Combinations() {
+        return util.findSetsByCombinations(deck, Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public List<int[]> deckAll_Completion() {
+        return util.findSets(deck, Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public List<int[]> tableAll_Combinations() {
+        return util.findSetsByCombinations(table, Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public List<int[]> tableAll_Completion() {
+        return util.findSets(table, Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,50 @@
+package bguspl.set.bench;
+
+import bguspl.set.Env;
+import bguspl.set.ex.Player;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of a full game (dealer and computer players) with no user interface and no artificial delays.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class GameBenchmark {
+
+    @Param({"3"})
+    public int featureSize;
+
+    @Param({"3", "4"})
+    public int featureCount;
+
+    @Param({"1", "4", "8"})
+    public int players;
+
+    private Env env;
+
+    @Setup
+    public void setup() {
+        env = Games.env(Games.config(featureSize, featureCount, players));
+    }
+
+    @Benchmark
+    public Player[] fullGame() throws InterruptedException {
+        return Games.play(env);
+    }
+}
@@ -0,0 +1,79 @@
+package bguspl.set.bench;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.UserInterfaceDecorator;
+import bguspl.set.Util;
+import bguspl.set.UtilImpl;
+import bguspl.set.ex.Dealer;
+import bguspl.set.ex.Player;
+import bguspl.set.ex.Table;
+
+import java.util.Properties;
+import java.util.logging.Logger;
+
+/**
+ * Helpers for setting up game entities without a user interface, log file or artificial delays.
+ */
+final class Games {
+
+    private Games() {}
+
+    /**
+     * Creates a configuration for a computer players only game with no delays.
+     *
+     * @param featureSize  - the number of choices for each feature.
+     * @param featureCount - the number of features on the cards.
+     * @param players      - the number of computer players.
+     * @return - the configuration.
+     */
+    static Config config(int featureSize, int featureCount, int players) {
+        Properties properties = new Properties();
+        properties.put("LogLevel", "OFF");
+        properties.put("FeatureSize", Integer.toString(featureSize));
+        properties.put("FeatureCount", Integer.toString(featureCount));
+        properties.put("HumanPlayers", "0");
+        properties.put("ComputerPlayers", Integer.toString(players));
+        properties.put("TurnTimeoutSeconds", "0.1");
+        properties.put("TurnTimeoutWarningSeconds", "0");
+        properties.put("PointFreezeSeconds", "0");
+        properties.put("PenaltyFreezeSeconds", "0");
+        properties.put("TableDelaySeconds", "0");
+        properties.put("EndGamePauseSeconds", "0");
+        return new Config(logger(), properties);
+    }
+
+    /**
+     * Creates an environment with no user interface.
+     */
+    static Env env(Config config) {
+        Logger logger = logger();
+        Util util = new UtilImpl(config);
+        return new Env(logger, config, new UserInterfaceDecorator(logger, util, null), util);
+    }
+
+    /**
+     * Plays a full game with computer players only and returns once the dealer is done.
+     *
+     * @param env - the game environment.
+     * @return - the players of the game (with their final scores).
+     */
+    static Player[] play(Env env) throws InterruptedException {
+        Table table = new Table(env);
+        Player[] players = new Player[env.config.players];
+        Dealer dealer = new Dealer(env, table, players);
+        for (int i = 0; i < players.length; i++)
+            players[i] = new Player(env, dealer, table, i, false);
+
+        Thread dealerThread = new Thread(dealer, "dealer");
+        dealerThread.start();
+        dealerThread.join();
+        return players;
+    }
+
+    private static Logger logger() {
+        Logger logger = Logger.getLogger("SetGameBenchmarkLogger");
+        logger.setUseParentHandlers(false);
+        return logger;
+    }
+}
@@ -0,0 +1,81 @@
+package bguspl.set.bench;
+
+import bguspl.set.Config;
+import bguspl.set.ex.Table;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Benchmarks of placing and removing tokens on a full table, by one player or by several players at once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TableBenchmark {
+
+    @Param({"2", "8"})
+    public int players;
+
+    private Table table;
+    private int tableSize;
+    private final AtomicInteger nextPlayer = new AtomicInteger();
+
+    /**
+     * The player and slot used by each benchmark thread.
+     */
+    @State(Scope.Thread)
+    public static class Hand {
+        int player;
+        int slot;
+
+        @Setup
+        public void setup(TableBenchmark benchmark) {
+            player = benchmark.nextPlayer.getAndIncrement() % benchmark.players;
+        }
+
+        int nextSlot(int tableSize) {
+            slot = slot + 1 == tableSize ? 0 : slot + 1;
+            return slot;
+        }
+    }
+
+    @Setup
+    public void setup() {
+        Config config = Games.config(3, 4, players);
+        table = new Table(Games.env(config));
+        tableSize = config.tableSize;
+        for (int slot = 0; slot < tableSize; ++slot)
+            table.placeCard(slot, slot);
+    }
+
+    @Benchmark
+    public boolean placeAndRemoveToken(Hand hand) {
+        int slot = hand.nextSlot(tableSize);
+        table.placeToken(hand.player, slot);
+        return table.removeToken(hand.player, slot);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean placeAndRemoveToken_Contended(Hand hand) {
+        int slot = hand.nextSlot(tableSize);
+        table.placeToken(hand.player, slot);
+        return table.removeToken(hand.player, slot);
+    }
+}
@@ -0,0 +1,93 @@
+package bguspl.set.bench;
+
+import bguspl.set.Config;
+import bguspl.set.Util;
+import bguspl.set.UtilImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Benchmarks of the set checking and set finding utilities.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UtilBenchmark {
+
+    /**
+     * The number of precomputed card groups testSet cycles through.
+     */
+    private static final int GROUPS = 1024;
+
+    @Param({"3", "4"})
+    public int featureSize;
+
+    @Param({"3", "4"})
+    public int featureCount;
+
+    private Util util;
+    private List<Integer> deck;
+    private List<Integer> table;
+    private int[][] groups;
+    private int next;
+
+    @Setup
+    public void setup() {
+        Config config = Games.config(featureSize, featureCount, 2);
+        util = new UtilImpl(config);
+
+        deck = IntStream.range(0, config.deckSize).boxed().collect(Collectors.toList());
+        Random random = new Random(0);
+        Collections.shuffle(deck, random);
+        table = deck.subList(0, Math.min(12, deck.size()));
+
+        // half of the groups are legal sets, the other half are random cards
+        List<int[]> sets = util.findSets(deck, GROUPS / 2);
+        groups = new int[GROUPS][];
+        for (int i = 0; i < GROUPS; ++i)
+            groups[i] = i % 2 == 0 ? sets.get(i / 2 % sets.size()) : random.ints(featureSize, 0, config.deckSize).toArray();
+    }
+
+    @Benchmark
+    public boolean testSet() {
+        next = (next + 1) & (GROUPS - 1);
+        return util.testSet(groups[next]);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<int[]> findSets_DeckFirst() {
+        return util.findSets(deck, 1);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<int[]> findSets_DeckAll() {
+        return util.findSets(deck, Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<int[]> findSets_TableAll() {
+        return util.findSets(table, Integer.MAX_VALUE);
+    }
+}
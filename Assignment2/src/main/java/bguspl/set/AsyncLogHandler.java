@@ -0,0 +1,204 @@
+package bguspl.set;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.ErrorManager;
+import java.util.logging.Formatter;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+
+/**
+ * A log handler that never makes the logging threads wait for the disk: records are put in a bounded ring buffer, and
+ * a background thread formats and writes them in batches (one write and one flush per batch).
+ * When the buffer is full, records are handled according to the drop policy, and the number of dropped records is
+ * written to the log when the handler is closed.
+ */
+public class AsyncLogHandler extends Handler {
+
+    /**
+     * What to do with a record when the buffer is full.
+     */
+    public enum DropPolicy {
+        Block,      // wait for room (no record is lost)
+        DropNewest, // drop the new record
+        DropOldest  // drop the oldest record in the buffer to make room
+    }
+
+    /**
+     * The maximum number of records written at once.
+     */
+    private static final int MAX_BATCH = 256;
+
+    private final ArrayBlockingQueue<LogRecord> buffer;
+    private final Writer out;
+    private final Thread flusher;
+    private volatile DropPolicy dropPolicy = DropPolicy.DropNewest;
+    private volatile boolean closed;
+
+    /**
+     * The number of records published and not written (or dropped) yet.
+     */
+    private final AtomicLong pending = new AtomicLong();
+
+    /**
+     * The number of records dropped because the buffer was full.
+     */
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * @param out      - the writer of the log (closed with the handler).
+     * @param capacity - the maximum number of records in the buffer.
+     */
+    public AsyncLogHandler(Writer out, int capacity) {
+        this.out = out;
+        this.buffer = new ArrayBlockingQueue<>(capacity);
+        setFormatter(new LogFormatter(LogFormatter.DEFAULT_FORMAT));
+
+        flusher = new Thread(this::writeLoop, "log-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * @param dropPolicy - what to do with a record when the buffer is full.
+     */
+    public void setDropPolicy(DropPolicy dropPolicy) {
+        this.dropPolicy = dropPolicy;
+    }
+
+    /**
+     * @return - the number of records dropped so far because the buffer was full.
+     */
+    public long dropped() {
+        return dropped.get();
+    }
+
+    @Override
+    public void publish(LogRecord record) {
+        if (closed || !isLoggable(record)) return;
+
+        pending.incrementAndGet();
+        switch (dropPolicy) {
+            case Block:
+                try {
+                    buffer.put(record);
+                } catch (InterruptedException e) {
+                    drop(1);
+                    Thread.currentThread().interrupt();
+                }
+                break;
+            case DropOldest:
+                while (!buffer.offer(record))
+                    if (buffer.poll() != null) drop(1);
+                break;
+            default:
+                if (!buffer.offer(record)) drop(1);
+        }
+    }
+
+    /**
+     * Waits until all the records published so far are written, and flushes the writer.
+     */
+    @Override
+    public void flush() {
+        synchronized (pending) {
+            while (pending.get() > 0 && flusher.isAlive()) {
+                try {
+                    pending.wait(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        try {
+            synchronized (out) {
+                out.flush();
+            }
+        } catch (IOException e) {
+            reportError("cannot flush the log", e, ErrorManager.FLUSH_FAILURE);
+        }
+    }
+
+    /**
+     * Writes the remaining records and the number of dropped records, and closes the writer.
+     */
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        flusher.interrupt();
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        try {
+            synchronized (out) {
+                if (dropped.get() > 0) out.write(dropped.get() + " log records were dropped" + System.lineSeparator());
+                out.close();
+            }
+        } catch (IOException e) {
+            reportError("cannot close the log", e, ErrorManager.CLOSE_FAILURE);
+        }
+    }
+
+    private void drop(int records) {
+        dropped.addAndGet(records);
+        done(records);
+    }
+
+    private void done(int records) {
+        if (pending.addAndGet(-records) <= 0)
+            synchronized (pending) {
+                pending.notifyAll();
+            }
+    }
+
+    /**
+     * The main loop of the flusher thread: waits for records and writes them in batches until the handler is closed.
+     */
+    private void writeLoop() {
+        List<LogRecord> batch = new ArrayList<>(MAX_BATCH);
+        StringBuilder text = new StringBuilder(MAX_BATCH * 64);
+        while (true) {
+            if (closed) {
+                if (buffer.isEmpty()) return;
+            } else try {
+                batch.add(buffer.take());
+            } catch (InterruptedException e) {
+                continue; // closing (or a spurious interrupt): check again
+            }
+            buffer.drainTo(batch, MAX_BATCH - batch.size());
+            if (batch.isEmpty()) continue;
+
+            Formatter formatter = getFormatter();
+            for (LogRecord record : batch) {
+                try {
+                    if (formatter instanceof LogFormatter) ((LogFormatter) formatter).format(record, text);
+                    else text.append(formatter.format(record));
+                } catch (RuntimeException e) {
+                    reportError("cannot format a log record", e, ErrorManager.FORMAT_FAILURE);
+                }
+            }
+
+            try {
+                synchronized (out) {
+                    out.append(text);
+                    if (buffer.isEmpty()) out.flush();
+                }
+            } catch (IOException e) {
+                reportError("cannot write the log", e, ErrorManager.WRITE_FAILURE);
+            }
+
+            done(batch.size());
+            batch.clear();
+            text.setLength(0);
+        }
+    }
+}
@@ -7,6 +7,7 @@ import java.nio.file.InvalidPathException;
 import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -21,6 +22,21 @@ public class Config {
     public final long randomSpinMin;
     public final long randomSpinMax;
 
+    /**
+     * The seed of the dealer's and the computer players' random choices (a random seed if not configured)
+     */
+    public final long randomSeed;
+
+    /**
+     * The file the events of the game are recorded to, for replay with GameReplay (not recorded if empty)
+     */
+    public final String eventLogFile;
+
+    /**
+     * The number of milliseconds between logging the game metrics (0 to log them only at the end of the game)
+     */
+    public final long metricsDumpMillis;
+
     /**
      * The number of features on the cards (e.g. shape, color etc.)
      */
@@ -46,11 +62,31 @@ public class Config {
      */
     public final int computerPlayers;
 
+    /**
+     * How the computer players choose their key presses: "Random" (random keys) or "Sets" (collect sets on the table)
+     */
+    public final String computerStrategy;
+
+    /**
+     * The average number of milliseconds it takes a computer player to find a set on the table (for the "Sets" strategy)
+     */
+    public final long computerReactionMillis;
+
+    /**
+     * The probability that a computer player claims a wrong set (for the "Sets" strategy)
+     */
+    public final double computerErrorRate;
+
     /**
      * The total number of players (human + computer) in the game
      */
     public final int players;
 
+    /**
+     * True iff the player and computer player threads are virtual threads (JDK 21+, false if not supported)
+     */
+    public final boolean virtualThreads;
+
     /**
      * Whether to print out hints to the console or not
      */
@@ -77,7 +113,7 @@ public class Config {
     public final long pointFreezeMillis;
 
     /**
-     * The number of milliseconds to delay before removing/placing a card on the table
+     * The number of milliseconds between cards being removed/placed on the screen (the game itself is not delayed)
      */
     public final long tableDelayMillis;
 
@@ -155,7 +191,7 @@ public class Config {
      * @param filename - the name of the configuration file.
      * @return - a properties object with the configuration file contents.
      */
-    private static Properties loadProperties(String filename, Logger logger) {
+    static Properties loadProperties(String filename, Logger logger) {
 
         Properties properties = new Properties();
 
@@ -184,8 +220,14 @@ public class Config {
 
         // logger settings
         Level logLevel = Level.parse(properties.getProperty("LogLevel", "ALL"));
-        String logFormat = properties.getProperty("LogFormat", "[%1$tT.%1$tL] [%2$-7s] %3$s%n");
+        String logFormat = properties.getProperty("LogFormat", LogFormatter.DEFAULT_FORMAT);
         Main.setLoggerLevelAndFormat(logger, logLevel, logFormat);
+        String dropPolicy = properties.getProperty("LogDropPolicy", "DropNewest").trim();
+        try {
+            Main.setLogDropPolicy(logger, AsyncLogHandler.DropPolicy.valueOf(dropPolicy));
+        } catch (IllegalArgumentException e) {
+            logger.severe("invalid log drop policy: " + dropPolicy);
+        }
 
         // for debugging
         randomSpinMin = Long.parseLong(properties.getProperty("RandomSpinMin", "0"));
@@ -193,15 +235,32 @@ public class Config {
         if (randomSpinMax < randomSpinMin || randomSpinMin < 0)
             logger.severe("invalid random spin cycles: max: " + randomSpinMax + " min: " + randomSpinMin);
 
+        String seed = properties.getProperty("RandomSeed");
+        randomSeed = seed != null ? Long.parseLong(seed.trim()) : ThreadLocalRandom.current().nextLong();
+        eventLogFile = properties.getProperty("EventLogFile", "").trim();
+        metricsDumpMillis = (long) (Double.parseDouble(properties.getProperty("MetricsDumpSeconds", "0")) * 1000.0);
+
         // cards settings
         featureSize = Integer.parseInt(properties.getProperty("FeatureSize", "3"));
         featureCount = Integer.parseInt(properties.getProperty("FeatureCount", "4"));
         deckSize = (int) Math.pow(featureSize, featureCount);
+        if (Math.pow(featureSize, featureCount) > Integer.MAX_VALUE)
+            logger.severe("the deck is too large: " + featureSize + "^" + featureCount + " cards.");
 
         // gameplay settings
         humanPlayers = Integer.parseInt(properties.getProperty("HumanPlayers", "2"));
         computerPlayers = Integer.parseInt(properties.getProperty("ComputerPlayers", "0"));
         players = humanPlayers + computerPlayers;
+        computerStrategy = properties.getProperty("ComputerStrategy", "Random").trim();
+        computerReactionMillis = (long) (Double.parseDouble(properties.getProperty("ComputerReactionSeconds", "1")) * 1000.0);
+        computerErrorRate = Double.parseDouble(properties.getProperty("ComputerErrorRate", "0.1"));
+        if (computerErrorRate < 0 || computerErrorRate > 1)
+            logger.severe("invalid computer error rate: " + computerErrorRate);
+
+        boolean virtual = Boolean.parseBoolean(properties.getProperty("VirtualThreads", "False"));
+        if (virtual && !Threads.virtualSupported())
+            logger.warning("virtual threads are not supported by this JVM (JDK 21+ is required), using platform threads");
+        virtualThreads = virtual && Threads.virtualSupported();
 
         hints = Boolean.parseBoolean(properties.getProperty("Hints", "False"));
         turnTimeoutMillis = (long) (Double.parseDouble(properties.getProperty("TurnTimeoutSeconds", "60")) * 1000.0);
@@ -0,0 +1,184 @@
+package bguspl.set;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A precomputed bit-packed encoding of the deck.
+ * Every card is packed into a single long holding one field of featureSize bits per feature, with exactly one bit set
+ * in each field (the bit of that feature's value). OR-ing the codes of a group of cards yields, for every feature, the
+ * set of values used by the group, so checking a set needs no allocation and no div/mod per feature.
+ * The codes of decks of up to CODE_TABLE_LIMIT cards are computed once; the codes of larger decks are computed when
+ * needed, so the memory used does not grow with the deck.
+ */
+final class FeatureEncoder {
+
+    /**
+     * The largest deck whose codes are computed in advance.
+     */
+    static final int CODE_TABLE_LIMIT = 1 << 16;
+
+    /**
+     * The number of features on the cards.
+     */
+    private final int featureCount;
+
+    /**
+     * The number of choices for each feature (the width of each field in bits).
+     */
+    private final int featureSize;
+
+    /**
+     * A mask with the lowest featureSize bits set (one field).
+     */
+    private final long fieldMask;
+
+    /**
+     * The packed code of each card, indexed by the card id (null if the deck is larger than CODE_TABLE_LIMIT).
+     */
+    private final long[] codes;
+
+    /**
+     * Checks whether cards with the given dimensions fit the encoding.
+     *
+     * @param featureCount - the number of features on the cards.
+     * @param featureSize  - the number of choices for each feature.
+     * @return - true iff a card can be packed into a single long.
+     */
+    static boolean supports(int featureCount, int featureSize) {
+        return featureCount >= 0 && featureSize > 0 && (long) featureCount * featureSize <= Long.SIZE;
+    }
+
+    /**
+     * @pre - supports(config.featureCount, config.featureSize)
+     */
+    FeatureEncoder(Config config) {
+        featureCount = config.featureCount;
+        featureSize = config.featureSize;
+        fieldMask = featureSize == Long.SIZE ? -1L : (1L << featureSize) - 1;
+
+        if (config.deckSize > CODE_TABLE_LIMIT) {
+            codes = null;
+            return;
+        }
+
+        codes = new long[config.deckSize];
+        int[] features = new int[featureCount];
+        for (int card = 0; card < codes.length; ++card) {
+            long code = 0;
+            for (int i = 0; i < featureCount; ++i)
+                code |= 1L << (i * featureSize + features[i]);
+            codes[card] = code;
+
+            // advance the base-featureSize digits to the next card id (the last feature is the least significant)
+            for (int i = featureCount - 1; i >= 0 && ++features[i] == featureSize; --i)
+                features[i] = 0;
+        }
+    }
+
+    /**
+     * Returns the packed code of a card.
+     *
+     * @param card - the card id.
+     * @return - the code of the card.
+     */
+    long code(int card) {
+        if (codes != null) return codes[card];
+
+        long code = 0;
+        for (int shift = (featureCount - 1) * featureSize; shift >= 0; shift -= featureSize) {
+            code |= 1L << (shift + card % featureSize);
+            card /= featureSize;
+        }
+        return code;
+    }
+
+    /**
+     * Checks if an array of cards forms a legal set, i.e. each feature is either the same on all cards or different on
+     * all cards (but not both).
+     *
+     * @param cards - the array of card ids.
+     * @return - true iff the array forms a legal set.
+     */
+    boolean isSet(int[] cards) {
+        long used = 0;
+        for (int card : cards)
+            used |= code(card);
+        return isSet(used, cards.length);
+    }
+
+    /**
+     * Checks if the OR of the codes of a group of cards describes a legal set.
+     *
+     * @param used  - the OR of the codes of the cards.
+     * @param cards - the number of cards in the group.
+     * @return - true iff the group forms a legal set.
+     */
+    boolean isSet(long used, int cards) {
+        for (int i = 0, shift = 0; i < featureCount; ++i, shift += featureSize) {
+            int values = Long.bitCount((used >>> shift) & fieldMask);
+            if ((values <= 1) == (values == cards)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Computes the single card that completes a group of featureSize - 1 cards into a legal set: every feature that is
+     * the same on all the cards keeps its value, and every feature that is different on all of them takes the one
+     * value left unused.
+     *
+     * @param used - the OR of the codes of the featureSize - 1 cards.
+     * @return - the id of the completing card.
+     *
+     * @pre - featureSize >= 3 and isSet(used, featureSize - 1)
+     */
+    int completeSet(long used) {
+        int card = 0;
+        for (int i = 0, shift = 0; i < featureCount; ++i, shift += featureSize) {
+            long values = (used >>> shift) & fieldMask;
+            if (Long.bitCount(values) != 1) values ^= fieldMask;
+            card = card * featureSize + Long.numberOfTrailingZeros(values);
+        }
+        return card;
+    }
+
+    /**
+     * Chooses the first featureSize - 1 cards of a set in increasing order, dropping every prefix that can no longer be
+     * completed, and looks up the single card that completes each full prefix in the presence bitmap.
+     * Every set is found exactly once, from its smallest chosen cards. Cards already placed in the set before the
+     * search starts (depth > 0) are kept as they are and need not be in cards or in the bitmap.
+     *
+     * @param cards   - the sorted cards to choose from.
+     * @param present - a bitmap of the cards that may complete a set, indexed by card id (null to look the completing
+     *                card up in cards, so the cost does not depend on the size of the deck).
+     * @param set     - the cards chosen so far (featureSize entries).
+     * @param depth   - the number of cards chosen so far.
+     * @param from    - the index in cards to choose the next card from.
+     * @param used    - the OR of the codes of the cards chosen so far.
+     * @param sets    - the list to add the sets found to (null to only count them).
+     * @param count   - the maximum number of sets to find.
+     * @return - the number of sets found.
+     *
+     * @pre - featureSize >= 3
+     */
+    int completeSets(int[] cards, long[] present, int[] set, int depth, int from, long used, List<int[]> sets, int count) {
+        if (depth == set.length - 1) {
+            int last = completeSet(used);
+            if (last <= set[depth - 1]) return 0;
+            if (present == null ? Arrays.binarySearch(cards, last) < 0 : (present[last >>> 6] & (1L << last)) == 0)
+                return 0;
+            set[depth] = last;
+            if (sets != null) sets.add(set.clone());
+            return 1;
+        }
+
+        int found = 0;
+        for (int i = from; i <= cards.length - (set.length - 1 - depth) && found < count; ++i) {
+            long next = used | code(cards[i]);
+            if (depth > 0 && !isSet(next, depth + 1)) continue;
+            set[depth] = cards[i];
+            found += completeSets(cards, present, set, depth + 1, i + 1, next, sets, count - found);
+        }
+        return found;
+    }
+}
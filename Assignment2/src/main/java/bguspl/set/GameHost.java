@@ -0,0 +1,251 @@
+package bguspl.set;
+
+import bguspl.set.ex.Dealer;
+import bguspl.set.ex.Player;
+import bguspl.set.ex.Table;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * This class hosts many independent games (tables) in a single JVM.
+ * Every table has its own dealer, players and configuration and runs headless (no user interface or log file). At
+ * most maxRunningTables dealers run at once on a bounded worker pool; tables started beyond that wait for a worker.
+ * Each table can be stopped on its own, and its metrics can be read while it runs.
+ */
+public class GameHost implements AutoCloseable {
+
+    /**
+     * The life cycle of a hosted table.
+     */
+    public enum TableState {
+        Waiting,
+        Running,
+        Finished,
+        Stopped
+    }
+
+    /**
+     * A snapshot of a table's metrics.
+     */
+    public static class TableMetrics {
+
+        public final int id;
+        public final TableState state;
+        public final int players;
+
+        /**
+         * The number of sets collected so far (the sum of the players' scores).
+         */
+        public final int sets;
+
+        /**
+         * The number of milliseconds the table has been running (0 if it did not start yet).
+         */
+        public final long runningMillis;
+
+        /**
+         * The time it took players to get a verdict on their sets (live, keeps counting while the table runs).
+         */
+        public final LatencyHistogram checkLatency;
+
+        private TableMetrics(int id, TableState state, int players, int sets, long runningMillis,
+                             LatencyHistogram checkLatency) {
+            this.id = id;
+            this.state = state;
+            this.players = players;
+            this.sets = sets;
+            this.runningMillis = runningMillis;
+            this.checkLatency = checkLatency;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("table %d: %s, %d players, %d sets in %.1f s, %d checks (p50 %.1f us, p99 %.1f us)",
+                    id, state, players, sets, runningMillis / 1000.0, checkLatency.count(),
+                    checkLatency.percentile(50) / 1e3, checkLatency.percentile(99) / 1e3);
+        }
+    }
+
+    /**
+     * The entities of a single hosted game.
+     */
+    private static class HostedTable implements Runnable {
+
+        private final int id;
+        private final Dealer dealer;
+        private final Player[] players;
+        private volatile TableState state = TableState.Waiting;
+        private volatile long startTime;
+        private volatile long endTime;
+        private Future<?> future;
+
+        private HostedTable(int id, Env env) {
+            this.id = id;
+            Table table = new Table(env);
+            players = new Player[env.config.players];
+            dealer = new Dealer(env, table, players);
+            for (int i = 0; i < players.length; i++)
+                players[i] = new Player(env, dealer, table, i, i < env.config.humanPlayers);
+        }
+
+        /**
+         * Runs the dealer of the table on the calling worker thread.
+         */
+        @Override
+        public void run() {
+            synchronized (this) {
+                if (state != TableState.Waiting) return;
+                state = TableState.Running;
+            }
+            Thread worker = Thread.currentThread();
+            String workerName = worker.getName();
+            worker.setName("table-" + id + "-dealer");
+            startTime = System.currentTimeMillis();
+            try {
+                dealer.run();
+            } finally {
+                endTime = System.currentTimeMillis();
+                worker.setName(workerName);
+                synchronized (this) {
+                    if (state == TableState.Running) state = TableState.Finished;
+                }
+            }
+        }
+
+        private void stop() {
+            synchronized (this) {
+                if (state == TableState.Waiting) {
+                    state = TableState.Stopped;
+                    future.cancel(false);
+                    return;
+                }
+                if (state != TableState.Running) return;
+                state = TableState.Stopped;
+            }
+            dealer.terminate();
+        }
+
+        private TableMetrics metrics() {
+            int sets = 0;
+            for (Player player : players)
+                sets += player.score();
+            long start = startTime;
+            long end = endTime != 0 ? endTime : System.currentTimeMillis();
+            return new TableMetrics(id, state, players.length, sets, start == 0 ? 0 : end - start,
+                    dealer.getCheckLatency());
+        }
+    }
+
+    private final Logger logger;
+    private final ExecutorService workers;
+    private final Map<Integer, HostedTable> tables = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger();
+
+    /**
+     * @param logger           - the logger shared by all tables (no handlers are added to it).
+     * @param maxRunningTables - the maximum number of tables running at once.
+     */
+    public GameHost(Logger logger, int maxRunningTables) {
+        this.logger = logger;
+        AtomicInteger workerCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(maxRunningTables,
+                runnable -> new Thread(runnable, "host-worker-" + workerCount.incrementAndGet()));
+    }
+
+    /**
+     * Starts a new headless table (it waits for a free worker if maxRunningTables tables are running).
+     *
+     * @param config - the configuration of the table.
+     * @return - the id of the table.
+     */
+    public int startTable(Config config) {
+        Util util = new UtilImpl(config);
+        Env env = new Env(logger, config, new UserInterfaceDecorator(logger, util, null), util);
+        HostedTable table = new HostedTable(nextId.incrementAndGet(), env);
+        synchronized (table) {
+            table.future = workers.submit(table);
+        }
+        tables.put(table.id, table); // published with its future, so stopTable and awaitTable always see it
+        return table.id;
+    }
+
+    /**
+     * Stops a table (its dealer and players terminate, other tables are not affected).
+     *
+     * @param id - the id of the table.
+     */
+    public void stopTable(int id) {
+        HostedTable table = tables.get(id);
+        if (table != null) table.stop();
+    }
+
+    /**
+     * Waits until a table is finished or stopped.
+     *
+     * @param id - the id of the table.
+     * @return - the final metrics of the table.
+     */
+    public TableMetrics awaitTable(int id) throws InterruptedException {
+        HostedTable table = tables.get(id);
+        if (table == null) throw new IllegalArgumentException("no table " + id);
+        try {
+            table.future.get();
+        } catch (ExecutionException e) {
+            logger.severe("table " + id + " failed: " + e.getCause());
+        } catch (java.util.concurrent.CancellationException ignored) {
+            // stopped before it started
+        }
+        return table.metrics();
+    }
+
+    /**
+     * Returns the current metrics of a table.
+     *
+     * @param id - the id of the table.
+     * @return - the metrics (null if there is no such table).
+     */
+    public TableMetrics metrics(int id) {
+        HostedTable table = tables.get(id);
+        return table == null ? null : table.metrics();
+    }
+
+    /**
+     * Returns the current metrics of all the tables, ordered by id.
+     *
+     * @return - the list of metrics.
+     */
+    public List<TableMetrics> metrics() {
+        List<TableMetrics> metrics = new ArrayList<>();
+        tables.values().forEach(table -> metrics.add(table.metrics()));
+        metrics.sort((first, second) -> Integer.compare(first.id, second.id));
+        return metrics;
+    }
+
+    /**
+     * Forgets a finished or stopped table (its metrics are no longer available).
+     *
+     * @param id - the id of the table.
+     */
+    public void removeTable(int id) {
+        tables.computeIfPresent(id, (key, table) ->
+                table.state == TableState.Finished || table.state == TableState.Stopped ? null : table);
+    }
+
+    /**
+     * Stops all the tables and the worker pool.
+     */
+    @Override
+    public void close() {
+        tables.keySet().forEach(this::stopTable);
+        workers.shutdown();
+    }
+}
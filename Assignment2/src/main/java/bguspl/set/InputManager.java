@@ -5,6 +5,7 @@ import bguspl.set.ex.Player;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
 import java.util.Arrays;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
@@ -22,8 +23,9 @@ class InputManager extends KeyAdapter {
         this.players = players;
         this.logger = logger;
 
-        // initialize the keys
-        for (int player = 0; player < config.players; ++player)
+        // initialize the keys of the human players only: a computer player gets its key presses from its own thread,
+        // which must stay the only producer of its key queue
+        for (int player = 0; player < config.humanPlayers; ++player)
             for (int i = 0; i < config.playerKeys(player).length; i++) {
                 int keyCode = config.playerKeys(player)[i];
                 if (keyCode >= keyMap.length) reallocArrays(keyCode); // enlarge the array for higher key codes
@@ -40,10 +42,13 @@ class InputManager extends KeyAdapter {
     @Override
     public void keyPressed(KeyEvent e) {
         // dispatch the key event to the player according to the key map
+        // this runs on the event dispatch thread: keep it short and never block
         int keyCode = e.getKeyCode();
+        if (keyCode < 0 || keyCode >= keyMap.length) return;
         int player = keyMap[keyCode] - 1;
         if (player >= 0){
-            logger.severe("key " + keyCode + " was pressed by player " + (player + 1));
+            if (logger.isLoggable(Level.FINE))
+                logger.fine("key " + keyCode + " was pressed by player " + (player + 1));
             players[player].keyPressed(keyToSlot[keyCode]);
         }
     }
@@ -0,0 +1,104 @@
+package bguspl.set;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of durations (in nanoseconds) with log-linear buckets: every power of two is split into 8
+ * buckets, so a percentile is reported with an error of at most 12.5%.
+ */
+public class LatencyHistogram {
+
+    /**
+     * The number of sub-buckets of every power of two (log2).
+     */
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray((Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    private static long highestValueOf(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int shift = bucket / SUB_BUCKETS - 1;
+        long first = (long) (SUB_BUCKETS | bucket % SUB_BUCKETS) << shift;
+        return first + (1L << shift) - 1;
+    }
+
+    /**
+     * Records a single duration.
+     *
+     * @param nanos - the duration in nanoseconds (negative values are recorded as 0).
+     */
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        buckets.incrementAndGet(bucketOf(value));
+        count.incrementAndGet();
+        total.addAndGet(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * Adds all the durations recorded by another histogram to this one.
+     *
+     * @param other - the histogram to add.
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < buckets.length(); ++i) {
+            long n = other.buckets.get(i);
+            if (n != 0) buckets.addAndGet(i, n);
+        }
+        count.addAndGet(other.count.get());
+        total.addAndGet(other.total.get());
+        max.accumulateAndGet(other.max.get(), Math::max);
+    }
+
+    /**
+     * @return - the number of durations recorded.
+     */
+    public long count() {
+        return count.get();
+    }
+
+    /**
+     * @return - the mean duration in nanoseconds (0 if nothing was recorded).
+     */
+    public long mean() {
+        long n = count.get();
+        return n == 0 ? 0 : total.get() / n;
+    }
+
+    /**
+     * @return - the longest duration recorded in nanoseconds.
+     */
+    public long max() {
+        return max.get();
+    }
+
+    /**
+     * Returns the duration that the given percentage of the recorded durations does not exceed.
+     *
+     * @param percentile - the percentage (between 0 and 100).
+     * @return - the duration in nanoseconds (0 if nothing was recorded).
+     */
+    public long percentile(double percentile) {
+        long n = count.get();
+        if (n == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * n));
+        long seen = 0;
+        for (int i = 0; i < buckets.length(); ++i) {
+            seen += buckets.get(i);
+            if (seen >= rank) return Math.min(highestValueOf(i), max.get());
+        }
+        return max.get();
+    }
+}
@@ -0,0 +1,78 @@
+package bguspl.set;
+
+import java.util.TimeZone;
+import java.util.logging.Formatter;
+import java.util.logging.LogRecord;
+
+/**
+ * A log formatter for the game's log format (see LogFormat in the configuration).
+ * The default format "[%1$tT.%1$tL] [%2$-7s] %3$s%n" (time of day, level, message) is written directly into a
+ * StringBuilder, without String.format and without allocating a Date. Any other format falls back to String.format.
+ */
+public class LogFormatter extends Formatter {
+
+    /**
+     * The default log format: [HH:mm:ss.SSS] [LEVEL  ] message.
+     */
+    public static final String DEFAULT_FORMAT = "[%1$tT.%1$tL] [%2$-7s] %3$s%n";
+
+    private static final String NEW_LINE = System.lineSeparator();
+    private static final int LEVEL_WIDTH = 7;
+    private static final long MILLIS_PER_DAY = 24 * 60 * 60 * 1000L;
+
+    private final String format;
+    private final boolean fast;
+    private final TimeZone timeZone = TimeZone.getDefault();
+
+    /**
+     * @param format - the format of a log record (1: the time, 2: the level name, 3: the message).
+     */
+    public LogFormatter(String format) {
+        this.format = format;
+        this.fast = DEFAULT_FORMAT.equals(format);
+    }
+
+    @Override
+    public String format(LogRecord record) {
+        if (!fast)
+            return String.format(format, record.getMillis(), record.getLevel().getLocalizedName(), record.getMessage());
+        StringBuilder text = new StringBuilder(64);
+        format(record, text);
+        return text.toString();
+    }
+
+    /**
+     * Appends a formatted log record.
+     *
+     * @param record - the log record.
+     * @param text   - the text to append to.
+     */
+    public void format(LogRecord record, StringBuilder text) {
+        if (!fast) {
+            text.append(format(record));
+            return;
+        }
+
+        long millis = record.getMillis();
+        long timeOfDay = Math.floorMod(millis + timeZone.getOffset(millis), MILLIS_PER_DAY);
+        text.append('[');
+        appendDigits(text, timeOfDay / 3_600_000, 2).append(':');
+        appendDigits(text, timeOfDay / 60_000 % 60, 2).append(':');
+        appendDigits(text, timeOfDay / 1000 % 60, 2).append('.');
+        appendDigits(text, timeOfDay % 1000, 3).append("] [");
+
+        String level = record.getLevel().getLocalizedName();
+        text.append(level);
+        for (int i = level.length(); i < LEVEL_WIDTH; ++i)
+            text.append(' ');
+        text.append("] ").append(record.getMessage()).append(NEW_LINE);
+    }
+
+    private static StringBuilder appendDigits(StringBuilder text, long value, int digits) {
+        long limit = 1;
+        while (--digits > 0) limit *= 10;
+        for (; limit > 1 && value < limit; limit /= 10)
+            text.append('0');
+        return text.append(value);
+    }
+}
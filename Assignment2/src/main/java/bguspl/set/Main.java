@@ -6,10 +6,12 @@ import bguspl.set.ex.Table;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.text.SimpleDateFormat;
 import java.util.Arrays;
 import java.util.Calendar;
-import java.util.Date;
 import java.util.logging.*;
 
 /**
@@ -23,6 +25,11 @@ public class Main {
     private static boolean xButtonPressed = false;
     private static Logger logger;
 
+    /**
+     * The maximum number of log records waiting to be written to the log file.
+     */
+    private static final int LOG_BUFFER_SIZE = 8192;
+
     public static void xButtonPressed() throws InterruptedException {
         if (logger != null) logger.severe("exit button pressed");
         xButtonPressed = true;
@@ -48,7 +55,8 @@ public class Main {
         Player[] players = new Player[config.players];
         UserInterface ui = null;
         try {
-            ui = new UserInterfaceSwing(logger, config, players);
+            // the game threads only record the changes, and the window is redrawn at a fixed frame rate
+            ui = new UserInterfaceDispatcher(config, new UserInterfaceSwing(logger, config, players));
         } catch (UnsupportedOperationException | IllegalArgumentException e) {
             logger.severe("error creating swing user interface: " + e.getMessage());
             logger.severe("will try to run without user interface");
@@ -79,7 +87,7 @@ public class Main {
             System.out.println("Thanks for playing... it was fun!");
             ThreadLogger.logStop(logger, Thread.currentThread().getName());
             if (!xButtonPressed) env.ui.dispose();
-            for (Handler h : logger.getHandlers()) h.flush();
+            for (Handler h : logger.getHandlers()) h.close();
         }
     }
 
@@ -87,11 +95,12 @@ public class Main {
 
         //just to make our log file nicer :)
         SimpleDateFormat format = new SimpleDateFormat("M-d_HH-mm-ss");
-        FileHandler handler;
+        AsyncLogHandler handler;
         try {
             //noinspection ResultOfMethodCallIgnored
             new File("./logs/").mkdirs();
-            handler = new FileHandler("./logs/" + format.format(Calendar.getInstance().getTime()) + ".log");
+            handler = new AsyncLogHandler(Files.newBufferedWriter(Paths.get("./logs/" + format.format(Calendar.getInstance().getTime()) + ".log"),
+                    StandardCharsets.UTF_8), LOG_BUFFER_SIZE);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -99,22 +108,22 @@ public class Main {
         java.util.logging.Logger logger = java.util.logging.Logger.getLogger("SetGameLogger");
         logger.setUseParentHandlers(false);
         logger.addHandler(handler);
-        setLoggerLevelAndFormat(logger, Level.ALL, "[%1$tT.%1$tL] [%2$-7s] %3$s%n");
+        setLoggerLevelAndFormat(logger, Level.ALL, LogFormatter.DEFAULT_FORMAT);
 
         return logger;
     }
 
     public static void setLoggerLevelAndFormat(Logger logger, Level level, String format) {
         Handler[] handlers = logger.getHandlers();
-        if (handlers != null) Arrays.stream(handlers).forEach(h -> h.setFormatter(new SimpleFormatter() {
-            // default format (with timestamp)  = "[%1$tF %1$tT] [%2$-7s] %3$s%n";
-            @Override
-            public synchronized String format(LogRecord lr) {
-                return String.format(format, new Date(lr.getMillis()),
-                        lr.getLevel().getLocalizedName(), lr.getMessage()
-                );
-            }
-        }));
+        // default format (with timestamp)  = "[%1$tF %1$tT] [%2$-7s] %3$s%n";
+        if (handlers != null) Arrays.stream(handlers).forEach(h -> h.setFormatter(new LogFormatter(format)));
         logger.setLevel(level);
     }
+
+    public static void setLogDropPolicy(Logger logger, AsyncLogHandler.DropPolicy dropPolicy) {
+        Handler[] handlers = logger.getHandlers();
+        if (handlers != null) Arrays.stream(handlers)
+                .filter(h -> h instanceof AsyncLogHandler)
+                .forEach(h -> ((AsyncLogHandler) h).setDropPolicy(dropPolicy));
+    }
 }
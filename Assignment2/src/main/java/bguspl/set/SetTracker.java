@@ -0,0 +1,203 @@
+package bguspl.set;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps a live count of the legal sets among the cards still in play (in the deck or on the table).
+ * Cards only leave play when a set is collected, so moving cards between the deck and the table never changes the
+ * count, and removing a card only subtracts the sets that contain it.
+ * The count of the full deck is computed by a formula. Counting the sets of a removed card goes through
+ * deckSize ^ (featureSize - 2) combinations, so for decks where that exceeds EXACT_COST_LIMIT the sets are not counted:
+ * the tracker keeps one set in play as a witness instead, and looks for another one only when a card of it is removed.
+ */
+public class SetTracker {
+
+    /**
+     * The maximum number of combinations a removal may go through to keep the count exact.
+     */
+    static final long EXACT_COST_LIMIT = 1 << 16;
+
+    private final Config config;
+    private final Util util;
+
+    /**
+     * The packed card codes used to complete sets (null if the cards do not fit into a long or sets of less than 3
+     * cards are used, in which case the count is recomputed with the util).
+     */
+    private final FeatureEncoder encoder;
+
+    /**
+     * A bitmap of the cards in play, indexed by card id.
+     */
+    private final long[] inPlay;
+
+    /**
+     * The number of cards in play.
+     */
+    private int cards;
+
+    /**
+     * True iff the sets are counted (otherwise only a witness set is kept).
+     */
+    private final boolean counting;
+
+    /**
+     * The number of legal sets among the cards in play (if counting).
+     */
+    private long sets;
+
+    /**
+     * A legal set among the cards in play (if not counting, null if it must be looked for).
+     */
+    private int[] witness;
+
+    /**
+     * True iff there are no legal sets left among the cards in play (cards never come back into play).
+     */
+    private boolean exhausted;
+
+    /**
+     * Creates a tracker with the whole deck in play.
+     *
+     * @param config - the game configuration.
+     * @param util   - the util used when the cards do not fit the packed encoding.
+     */
+    public SetTracker(Config config, Util util) {
+        this.config = config;
+        this.util = util;
+        this.encoder = config.featureSize >= 3 && FeatureEncoder.supports(config.featureCount, config.featureSize)
+                ? new FeatureEncoder(config) : null;
+
+        inPlay = new long[(config.deckSize + Long.SIZE - 1) / Long.SIZE];
+        for (int card = 0; card < config.deckSize; ++card)
+            inPlay[card >>> 6] |= 1L << card;
+        cards = config.deckSize;
+
+        long fullDeckSets = countFullDeckSets(config.featureSize, config.featureCount);
+        counting = fullDeckSets >= 0 && removalCost(config, encoder != null) <= EXACT_COST_LIMIT;
+        sets = counting ? fullDeckSets : -1;
+    }
+
+    /**
+     * Counts the legal sets of a full deck: a set is featureSize distinct cards where every feature has the same value
+     * on all of them (featureSize choices) or different values (featureSize! orders), so there are
+     * ((featureSize + featureSize!) ^ featureCount - featureSize ^ featureCount) / featureSize! sets, not counting the
+     * "sets" of one card repeated.
+     *
+     * @return - the number of sets, or -1 if it does not fit into a long.
+     */
+    static long countFullDeckSets(int featureSize, int featureCount) {
+        if (featureSize < 2) return 0;
+        try {
+            long factorial = 1;
+            for (int i = 2; i <= featureSize; ++i)
+                factorial = Math.multiplyExact(factorial, i);
+            long tuples = 1, repeated = 1;
+            for (int i = 0; i < featureCount; ++i) {
+                tuples = Math.multiplyExact(tuples, featureSize + factorial);
+                repeated = Math.multiplyExact(repeated, featureSize);
+            }
+            return (tuples - repeated) / factorial;
+        } catch (ArithmeticException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Returns the number of card combinations a removal goes through: deckSize ^ (featureSize - 2) when sets are
+     * completed with the packed codes, deckSize ^ featureSize when they are recounted by the util.
+     */
+    private static long removalCost(Config config, boolean completing) {
+        long cost = 1;
+        for (int i = completing ? 2 : 0; i < config.featureSize; ++i) {
+            cost *= config.deckSize;
+            if (cost > EXACT_COST_LIMIT) break;
+        }
+        return cost;
+    }
+
+    /**
+     * Removes a card from play (i.e. it was collected as part of a set).
+     *
+     * @param card - the card id.
+     *
+     * @post - the count does not include any set containing the card.
+     */
+    public synchronized void remove(int card) {
+        if ((inPlay[card >>> 6] & (1L << card)) == 0) return;
+        inPlay[card >>> 6] &= ~(1L << card);
+        --cards;
+
+        if (!counting) {
+            if (witness != null)
+                for (int other : witness)
+                    if (other == card) witness = null;
+            return;
+        }
+
+        if (encoder == null) {
+            sets = countSets();
+            return;
+        }
+
+        // count the sets the card was part of by completing it with every featureSize - 2 other cards in play
+        int[] others = cardsInPlay();
+        int[] set = new int[config.featureSize];
+        set[0] = card;
+        sets -= encoder.completeSets(others, inPlay, set, 1, 0, encoder.code(card), null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the number of legal sets among the cards in play.
+     *
+     * @return - the number of sets (-1 if the deck is too large for the sets to be counted).
+     */
+    public synchronized long count() {
+        return sets;
+    }
+
+    /**
+     * Checks if there is at least one legal set among the cards in play.
+     *
+     * @return - true iff a set can still be collected.
+     */
+    public synchronized boolean hasSets() {
+        if (counting) return sets > 0;
+        if (witness == null && !exhausted) {
+            List<int[]> found = util.findSets(Arrays.stream(cardsInPlay()).boxed().collect(Collectors.toList()), 1);
+            witness = found.isEmpty() ? null : found.get(0);
+            exhausted = witness == null;
+        }
+        return witness != null;
+    }
+
+    /**
+     * Returns the set kept as a witness when the sets are not counted.
+     *
+     * @return - a copy of a legal set among the cards in play (null if none is known until hasSets looks for one).
+     */
+    synchronized int[] witness() {
+        return witness == null ? null : witness.clone();
+    }
+
+    /**
+     * Counts the sets among the cards in play from scratch.
+     */
+    private int countSets() {
+        return util.findSets(Arrays.stream(cardsInPlay()).boxed().collect(Collectors.toList()), Integer.MAX_VALUE).size();
+    }
+
+    /**
+     * Returns the cards in play in increasing order.
+     */
+    private int[] cardsInPlay() {
+        int[] list = new int[cards];
+        int n = 0;
+        for (int i = 0; i < inPlay.length; ++i)
+            for (long word = inPlay[i]; word != 0; word &= word - 1)
+                list[n++] = i * Long.SIZE + Long.numberOfTrailingZeros(word);
+        return list;
+    }
+}
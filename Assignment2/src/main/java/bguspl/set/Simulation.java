@@ -0,0 +1,73 @@
+package bguspl.set;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class plays many games back to back (or in parallel) with computer players only, for soak and regression
+ * testing. The games are run by a GameHost: there is no user interface, no log file and no table delay, and the
+ * throughput and set check latency are printed at the end.
+ */
+public class Simulation {
+
+    /**
+     * The simulation's main function.
+     *
+     * @param args - [games] [parallel games] [seed] [configuration file] (defaults: 100 1 random simulation.properties).
+     */
+    public static void main(String[] args) throws Exception {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int parallelism = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : System.nanoTime();
+        String configFilename = args.length > 3 ? args[3] : "simulation.properties";
+
+        Logger logger = Logger.getLogger("SetSimulationLogger");
+        logger.setUseParentHandlers(false);
+        Properties properties = Config.loadProperties(configFilename, logger);
+        properties.put("HumanPlayers", "0");
+        properties.put("TableDelaySeconds", "0");
+        properties.put("EndGamePauseSeconds", "0");
+        properties.put("Hints", "False");
+        properties.put("LogLevel", Level.OFF.getName());
+
+        Config config = new Config(logger, properties);
+        System.out.println("simulating " + games + " games (" + parallelism + " in parallel) of " + config.players
+                + " computer players with seed " + seed);
+
+        long sets = 0;
+        LatencyHistogram checkLatency = new LatencyHistogram();
+        long start = System.nanoTime();
+        try (GameHost host = new GameHost(logger, parallelism)) {
+            List<Integer> tables = new ArrayList<>();
+            for (int i = 0; i < games; ++i) {
+                Properties gameProperties = new Properties();
+                gameProperties.putAll(properties);
+                gameProperties.put("RandomSeed", Long.toString(seed + i));
+                if (!config.eventLogFile.isEmpty())
+                    gameProperties.put("EventLogFile", config.eventLogFile + "." + i); // one event log per game
+                tables.add(host.startTable(new Config(logger, gameProperties)));
+            }
+            for (int id : tables) {
+                GameHost.TableMetrics metrics = host.awaitTable(id);
+                sets += metrics.sets;
+                checkLatency.add(metrics.checkLatency);
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+
+        printSummary(games, elapsed, sets, checkLatency);
+    }
+
+    private static void printSummary(int games, long elapsedNanos, long sets, LatencyHistogram checkLatency) {
+        double seconds = elapsedNanos / 1e9;
+        System.out.printf("games: %d in %.2f s (%.2f games/sec)%n", games, seconds, games / seconds);
+        System.out.printf("sets: %d (%.1f sets/sec)%n", sets, sets / seconds);
+        System.out.printf("checks: %d, latency (us) mean: %.1f p50: %.1f p90: %.1f p99: %.1f p99.9: %.1f max: %.1f%n",
+                checkLatency.count(), checkLatency.mean() / 1e3, checkLatency.percentile(50) / 1e3,
+                checkLatency.percentile(90) / 1e3, checkLatency.percentile(99) / 1e3,
+                checkLatency.percentile(99.9) / 1e3, checkLatency.max() / 1e3);
+    }
+}
@@ -0,0 +1,63 @@
+package bguspl.set;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * This class creates the threads of the players, either platform threads or virtual threads (JDK 21+).
+ * The game is compiled for Java 8, so virtual threads are created through reflection and are only used when the
+ * running JVM supports them.
+ */
+public final class Threads {
+
+    /**
+     * Thread.ofVirtual(), Thread.Builder.name(String) and Thread.Builder.unstarted(Runnable) (null if unsupported).
+     */
+    private static final Method ofVirtual;
+    private static final Method name;
+    private static final Method unstarted;
+
+    static {
+        Method[] methods = null;
+        try {
+            Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            methods = new Method[]{
+                    Thread.class.getMethod("ofVirtual"),
+                    builder.getMethod("name", String.class),
+                    builder.getMethod("unstarted", Runnable.class)};
+            // a preview API (JDK 19-20 without --enable-preview) throws here
+            methods[2].invoke(methods[0].invoke(null), (Runnable) () -> {});
+        } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+            methods = null;
+        }
+        ofVirtual = methods == null ? null : methods[0];
+        name = methods == null ? null : methods[1];
+        unstarted = methods == null ? null : methods[2];
+    }
+
+    private Threads() {}
+
+    /**
+     * @return - true iff the running JVM can create virtual threads.
+     */
+    public static boolean virtualSupported() {
+        return ofVirtual != null;
+    }
+
+    /**
+     * Creates an unstarted thread.
+     *
+     * @param virtual    - true for a virtual thread (ignored if virtual threads are not supported).
+     * @param threadName - the name of the thread.
+     * @param task       - the task the thread runs.
+     * @return - the thread.
+     */
+    public static Thread newThread(boolean virtual, String threadName, Runnable task) {
+        if (!virtual || ofVirtual == null) return new Thread(task, threadName);
+        try {
+            return (Thread) unstarted.invoke(name.invoke(ofVirtual.invoke(null), threadName), task);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            return new Thread(task, threadName);
+        }
+    }
+}
@@ -1,12 +1,20 @@
 package bguspl.set;
 
 import java.util.Arrays;
-import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
+/**
+ * This class logs every call to the user interface (the messages are only built if they are logged).
+ */
 public class UserInterfaceDecorator implements UserInterface {
 
+    /**
+     * Whether the missing user interface was announced (once per process, however many games run headless).
+     */
+    private static final AtomicBoolean headlessAnnounced = new AtomicBoolean();
+
     private final Logger logger;
     private final Util util;
     private final UserInterface ui;
@@ -16,47 +24,48 @@ public class UserInterfaceDecorator implements UserInterface {
         this.logger = logger;
         this.util = util;
 
-        if (ui == null) System.out.println("running without a user interface. Check logs.");
+        if (ui == null && headlessAnnounced.compareAndSet(false, true))
+            System.out.println("running without a user interface. Check logs.");
     }
 
     @Override
     public void placeCard(int card, int slot) {
-        logger.severe("placing card " + card + " in slot " + slot);
+        logger.severe(() -> "placing card " + card + " in slot " + slot);
         util.spin();
         if (ui != null) ui.placeCard(card, slot);
     }
 
     @Override
     public void removeCard(int slot) {
-        logger.severe("removing card from slot " + slot);
+        logger.severe(() -> "removing card from slot " + slot);
         util.spin();
         if (ui != null) ui.removeCard(slot);
     }
 
     @Override
     public void placeToken(int player, int slot) {
-        logger.severe("player " + (player + 1) + " placing token on slot " + slot);
+        logger.severe(() -> "player " + (player + 1) + " placing token on slot " + slot);
         util.spin();
         if (ui != null) ui.placeToken(player, slot);
     }
 
     @Override
     public void removeTokens() {
-        logger.severe("removing all tokens");
+        logger.severe(() -> "removing all tokens");
         util.spin();
         if (ui != null) ui.removeTokens();
     }
 
     @Override
     public void removeTokens(int slot) {
-        logger.severe("removing tokens from slot " + slot);
+        logger.severe(() -> "removing tokens from slot " + slot);
         util.spin();
         if (ui != null) ui.removeTokens(slot);
     }
 
     @Override
     public void removeToken(int player, int slot) {
-        logger.severe("removing player " + (player + 1) + " token from slot " + slot);
+        logger.severe(() -> "removing player " + (player + 1) + " token from slot " + slot);
         util.spin();
         if (ui != null) ui.removeToken(player, slot);
     }
@@ -64,41 +73,41 @@ public class UserInterfaceDecorator implements UserInterface {
     @Override
     public void setCountdown(long millies, boolean warn) {
         if (!warn || millies % 1000L == 0L)
-            logger.severe("updating countdown to " + millies);
+            logger.severe(() -> "updating countdown to " + millies);
         if (ui != null) ui.setCountdown(millies, warn);
     }
 
     @Override
     public void setElapsed(long millies) {
-        logger.severe("updating elapsed time to " + millies);
+        logger.severe(() -> "updating elapsed time to " + millies);
         util.spin();
         if (ui != null) ui.setElapsed(millies);
     }
 
     @Override
     public void setFreeze(int player, long millies) {
-        logger.severe("setting player " + (player + 1) + " freeze to " + millies);
+        logger.severe(() -> "setting player " + (player + 1) + " freeze to " + millies);
         util.spin();
         if (ui != null) ui.setFreeze(player, millies);
     }
 
     @Override
     public void setScore(int player, int score) {
-        logger.severe("setting player " + (player + 1) + " score to " + score);
+        logger.severe(() -> "setting player " + (player + 1) + " score to " + score);
         util.spin();
         if (ui != null) ui.setScore(player, score);
     }
 
     @Override
     public void announceWinner(int[] players) {
-        List<String> winners = Arrays.stream(players).mapToObj(id -> "player " + (id + 1)).collect(Collectors.toList());
-        logger.severe("announcing winner(s): " + String.join(", ", winners));
+        logger.severe(() -> "announcing winner(s): " + Arrays.stream(players).mapToObj(id -> "player " + (id + 1))
+                .collect(Collectors.joining(", ")));
         if (ui != null) ui.announceWinner(players);
     }
 
     @Override
     public void dispose() {
-        logger.severe("disposing of user interface elements");
+        logger.severe(() -> "disposing of user interface elements");
         if (ui != null) ui.dispose();
     }
 }
@@ -0,0 +1,329 @@
+package bguspl.set;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.Arrays;
+
+/**
+ * A user interface that decouples the game threads from rendering. The calls of the game threads only record the
+ * latest state of the display (which card is in each slot, the tokens, the timer, the freezes and the scores) and
+ * return, and the changes are applied to the wrapped user interface in batches on the event dispatch thread at a fixed
+ * frame rate. Redundant updates between two frames are merged: only the last countdown and freeze values are shown,
+ * and a card that is removed and placed again (or a token that is removed and placed again) is not redrawn.
+ * The cards are animated here: a changed card is shown at least the configured table delay after the previous one,
+ * while the game goes on with the cards already on the table.
+ */
+public class UserInterfaceDispatcher implements UserInterface {
+
+    /**
+     * The number of frames per second of the display.
+     */
+    public static final int FRAMES_PER_SECOND = 60;
+
+    private static final int EMPTY = -1;
+
+    private final UserInterface ui;
+    private final Timer timer;
+
+    /**
+     * The number of milliseconds between showing two card changes.
+     */
+    private final long cardDelayMillis;
+
+    /**
+     * The latest state, written by the game threads (guarded by this).
+     */
+    private final int[] cards;
+    private final boolean[][] tokens;
+    private final boolean[] slotChanged;
+    private boolean anySlotChanged;
+    private long timerMillis;
+    private boolean timerWarn;
+    private boolean timerElapsed;
+    private boolean timerChanged;
+    private final long[] freezes;
+    private final boolean[] freezeChanged;
+    private final int[] scores;
+    private final boolean[] scoreChanged;
+    private boolean anyPlayerChanged;
+    private int[] winners;
+    private boolean disposed;
+
+    /**
+     * The state of the next frame, copied from the latest state (used by the event dispatch thread only).
+     */
+    private final int[] frameCards;
+    private final boolean[][] frameTokens;
+    private final boolean[] frameSlotChanged;
+    private final long[] frameFreezes;
+    private final boolean[] frameFreezeChanged;
+    private final int[] frameScores;
+    private final boolean[] frameScoreChanged;
+
+    /**
+     * The state shown by the wrapped user interface (used by the event dispatch thread only).
+     */
+    private final int[] shownCards;
+    private final boolean[][] shownTokens;
+    private boolean shownDisposed;
+
+    /**
+     * The slots whose card changed but was not shown yet, and the earliest time the next card change can be shown
+     * (used by the event dispatch thread only).
+     */
+    private final boolean[] cardPending;
+    private boolean anyCardPending;
+    private long nextCardMillis;
+
+    /**
+     * Creates a dispatcher that updates the user interface FRAMES_PER_SECOND times a second.
+     *
+     * @param config - the game configuration.
+     * @param ui     - the user interface to render on (called on the event dispatch thread only).
+     */
+    public UserInterfaceDispatcher(Config config, UserInterface ui) {
+        this(config, ui, true);
+    }
+
+    /**
+     * @param start - true to start the frame timer (false to apply the changes by calling flush).
+     */
+    UserInterfaceDispatcher(Config config, UserInterface ui, boolean start) {
+        this.ui = ui;
+        this.cardDelayMillis = Math.max(config.tableDelayMillis, 0);
+
+        cards = new int[config.tableSize];
+        tokens = new boolean[config.tableSize][config.players];
+        slotChanged = new boolean[config.tableSize];
+        freezes = new long[config.players];
+        freezeChanged = new boolean[config.players];
+        scores = new int[config.players];
+        scoreChanged = new boolean[config.players];
+
+        frameCards = new int[config.tableSize];
+        frameTokens = new boolean[config.tableSize][config.players];
+        frameSlotChanged = new boolean[config.tableSize];
+        frameFreezes = new long[config.players];
+        frameFreezeChanged = new boolean[config.players];
+        frameScores = new int[config.players];
+        frameScoreChanged = new boolean[config.players];
+
+        shownCards = new int[config.tableSize];
+        shownTokens = new boolean[config.tableSize][config.players];
+        cardPending = new boolean[config.tableSize];
+        Arrays.fill(cards, EMPTY);
+        Arrays.fill(shownCards, EMPTY);
+
+        timer = new Timer(1000 / FRAMES_PER_SECOND, event -> flush());
+        timer.setCoalesce(true);
+        if (start) timer.start();
+    }
+
+    @Override
+    public synchronized void placeCard(int card, int slot) {
+        cards[slot] = card;
+        slotChanged(slot);
+    }
+
+    @Override
+    public synchronized void removeCard(int slot) {
+        cards[slot] = EMPTY;
+        slotChanged(slot);
+    }
+
+    @Override
+    public synchronized void placeToken(int player, int slot) {
+        tokens[slot][player] = true;
+        slotChanged(slot);
+    }
+
+    @Override
+    public synchronized void removeTokens() {
+        for (int slot = 0; slot < tokens.length; ++slot) {
+            Arrays.fill(tokens[slot], false);
+            slotChanged(slot);
+        }
+    }
+
+    @Override
+    public synchronized void removeTokens(int slot) {
+        Arrays.fill(tokens[slot], false);
+        slotChanged(slot);
+    }
+
+    @Override
+    public synchronized void removeToken(int player, int slot) {
+        tokens[slot][player] = false;
+        slotChanged(slot);
+    }
+
+    @Override
+    public synchronized void setCountdown(long millies, boolean warn) {
+        timerMillis = millies;
+        timerWarn = warn;
+        timerElapsed = false;
+        timerChanged = true;
+    }
+
+    @Override
+    public synchronized void setElapsed(long millies) {
+        timerMillis = millies;
+        timerElapsed = true;
+        timerChanged = true;
+    }
+
+    @Override
+    public synchronized void setFreeze(int player, long millies) {
+        freezes[player] = millies;
+        freezeChanged[player] = true;
+        anyPlayerChanged = true;
+    }
+
+    @Override
+    public synchronized void setScore(int player, int score) {
+        scores[player] = score;
+        scoreChanged[player] = true;
+        anyPlayerChanged = true;
+    }
+
+    @Override
+    public synchronized void announceWinner(int[] players) {
+        winners = players.clone();
+    }
+
+    /**
+     * Stops the frame timer, and shows the last changes before disposing of the wrapped user interface (on the next
+     * flush if the timer was not started).
+     */
+    @Override
+    public void dispose() {
+        synchronized (this) {
+            disposed = true;
+        }
+        if (timer.isRunning()) {
+            timer.stop();
+            EventQueue.invokeLater(this::flush);
+        }
+    }
+
+    private void slotChanged(int slot) {
+        slotChanged[slot] = true;
+        anySlotChanged = true;
+    }
+
+    /**
+     * Applies the changes since the last frame to the wrapped user interface (on the event dispatch thread).
+     */
+    void flush() {
+        flush(System.currentTimeMillis());
+    }
+
+    /**
+     * @param now - the current time in milliseconds (paces the card changes).
+     */
+    void flush(long now) {
+        if (shownDisposed) return;
+
+        boolean slots, players, showTimer, elapsed, warn, dispose;
+        long millis;
+        int[] frameWinners;
+
+        // copy the changes, so the game threads are not held while rendering
+        synchronized (this) {
+            slots = anySlotChanged;
+            if (slots) {
+                for (int slot = 0; slot < cards.length; ++slot) {
+                    frameSlotChanged[slot] = slotChanged[slot];
+                    if (!slotChanged[slot]) continue;
+                    frameCards[slot] = cards[slot];
+                    System.arraycopy(tokens[slot], 0, frameTokens[slot], 0, tokens[slot].length);
+                    slotChanged[slot] = false;
+                }
+                anySlotChanged = false;
+            }
+
+            players = anyPlayerChanged;
+            if (players) {
+                for (int player = 0; player < freezes.length; ++player) {
+                    frameFreezeChanged[player] = freezeChanged[player];
+                    frameFreezes[player] = freezes[player];
+                    frameScoreChanged[player] = scoreChanged[player];
+                    frameScores[player] = scores[player];
+                    freezeChanged[player] = scoreChanged[player] = false;
+                }
+                anyPlayerChanged = false;
+            }
+
+            showTimer = timerChanged;
+            millis = timerMillis;
+            warn = timerWarn;
+            elapsed = timerElapsed;
+            timerChanged = false;
+
+            frameWinners = winners;
+            winners = null;
+            dispose = disposed;
+        }
+
+        if (slots)
+            for (int slot = 0; slot < frameCards.length; ++slot)
+                if (frameSlotChanged[slot]) showSlot(slot);
+        if (anyCardPending) showPendingCards(now, dispose);
+
+        if (players)
+            for (int player = 0; player < frameFreezes.length; ++player) {
+                if (frameFreezeChanged[player]) ui.setFreeze(player, frameFreezes[player]);
+                if (frameScoreChanged[player]) ui.setScore(player, frameScores[player]);
+            }
+
+        if (showTimer) {
+            if (elapsed) ui.setElapsed(millis);
+            else ui.setCountdown(millis, warn);
+        }
+
+        if (frameWinners != null) ui.announceWinner(frameWinners);
+
+        if (dispose) {
+            shownDisposed = true;
+            ui.dispose();
+        }
+    }
+
+    /**
+     * Shows the tokens of a slot, calling the wrapped user interface only for what changed, and queues its card if it
+     * changed.
+     */
+    private void showSlot(int slot) {
+        cardPending[slot] = frameCards[slot] != shownCards[slot];
+        anyCardPending |= cardPending[slot];
+
+        for (int player = 0; player < frameTokens[slot].length; ++player) {
+            if (frameTokens[slot][player] == shownTokens[slot][player]) continue;
+            if (frameTokens[slot][player]) ui.placeToken(player, slot);
+            else ui.removeToken(player, slot);
+            shownTokens[slot][player] = frameTokens[slot][player];
+        }
+    }
+
+    /**
+     * Shows the queued card changes, one every cardDelayMillis.
+     *
+     * @param all - true to show all of them now (when disposing).
+     */
+    private void showPendingCards(long now, boolean all) {
+        anyCardPending = false;
+        for (int slot = 0; slot < cardPending.length; ++slot) {
+            if (!cardPending[slot]) continue;
+            if (now < nextCardMillis && !all) {
+                anyCardPending = true;
+                return;
+            }
+
+            if (frameCards[slot] == EMPTY) ui.removeCard(slot);
+            else ui.placeCard(frameCards[slot], slot);
+            shownCards[slot] = frameCards[slot];
+            cardPending[slot] = false;
+            nextCardMillis = now + cardDelayMillis;
+        }
+    }
+}
@@ -7,7 +7,9 @@ import java.awt.*;
 import java.io.FileNotFoundException;
 import java.net.URL;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
@@ -103,7 +105,7 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
     private class GamePanel extends JLayeredPane {
 
         private final Image emptyCard;
-        private final Image[] deck;
+        private final Map<Integer, Image> deck = new HashMap<>(); // the images of the cards placed so far
         private final Image[][] grid;
         private final boolean[][][] playerTokens;
         private final JLabel[][] tokenText;
@@ -119,13 +121,8 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
 
             setPreferredSize(new Dimension(config.columns * config.cellWidth, config.rows * config.cellHeight));
 
-            // init deck and load all pictures from png files
+            // the card pictures are loaded from png files when the cards are first placed
             assert config.featureSize < 10; // otherwise there will be naming conflicts
-
-            // load the image resources
-            deck = new Image[config.deckSize];
-            for (int i = 0; i < config.deckSize; ++i)
-                deck[i] = loadImageResource("cards/" + intInBaseToPaddedString(i, config.featureCount, config.featureSize) + ".png");
             emptyCard = loadImageResource("cards/empty_card.png");
 
             grid = new Image[config.rows][config.columns];
@@ -151,7 +148,8 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
         private void placeCard(int slot, int card) {
             int row = slot / config.columns;
             int column = slot % config.columns;
-            grid[row][column] = deck[card];
+            grid[row][column] = deck.computeIfAbsent(card, id ->
+                    loadImageResource("cards/" + intInBaseToPaddedString(id, config.featureCount, config.featureSize) + ".png"));
             validate();
             repaint();
         }
@@ -13,8 +13,14 @@ public class UtilImpl implements Util {
 
     private final Config config;
 
+    /**
+     * The packed card codes used by testSet (null if the cards do not fit into a long).
+     */
+    private final FeatureEncoder encoder;
+
     public UtilImpl(Config config) {
         this.config = config;
+        this.encoder = FeatureEncoder.supports(config.featureCount, config.featureSize) ? new FeatureEncoder(config) : null;
     }
 
     private void cardToFeatures(int card, int[] features) {
@@ -40,6 +46,17 @@ public class UtilImpl implements Util {
 
     @Override
     public boolean testSet(int[] cards) {
+        return encoder != null ? encoder.isSet(cards) : testSetByFeatures(cards);
+    }
+
+    /**
+     * Checks if an array of cards forms a legal set by comparing their features one by one.
+     * Used when the cards are too large for the packed encoding.
+     *
+     * @param cards - the array of cards.
+     * @return - true iff the array forms a legal set.
+     */
+    boolean testSetByFeatures(int[] cards) {
         int[][] features = cardsToFeatures(Arrays.copyOf(cards, cards.length));
         for (int i = 0; i < config.featureCount; ++i) {
             boolean sameSame = true, butDifferent = true;
@@ -66,6 +83,32 @@ public class UtilImpl implements Util {
 
     @Override
     public List<int[]> findSets(List<Integer> deck, int count) {
+        // with sets of two cards (or cards too wide to pack) the completing card is not unique
+        if (encoder == null || config.featureSize < 3) return findSetsByCombinations(deck, count);
+
+        int[] cards = deck.stream().mapToInt(Integer::intValue).sorted().toArray();
+
+        // look the completing cards up in a bitmap of the deck, unless the cards are few (e.g. the cards on the table)
+        long[] present = null;
+        if ((long) cards.length * Long.SIZE >= config.deckSize) {
+            present = new long[(config.deckSize + Long.SIZE - 1) / Long.SIZE];
+            for (int card : cards)
+                present[card >>> 6] |= 1L << card;
+        }
+
+        LinkedList<int[]> sets = new LinkedList<>();
+        encoder.completeSets(cards, present, new int[config.featureSize], 0, 0, 0L, sets, count);
+        return sets;
+    }
+
+    /**
+     * Finds sets by testing every featureSize-combination of the given cards.
+     *
+     * @param deck  - a collection of cards (may not include null objects).
+     * @param count - the maximum number of sets to find.
+     * @return - a list of up to count integer arrays, each one contains the card ids of a legal set.
+     */
+    List<int[]> findSetsByCombinations(List<Integer> deck, int count) {
         LinkedList<int[]> sets = new LinkedList<>();
         int n = deck.size();
         int r = config.featureSize;
@@ -0,0 +1,38 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+
+/**
+ * This interface chooses the key presses of a computer player. Every computer player has its own strategy, called
+ * only by the player's computer thread.
+ */
+public interface ComputerStrategy {
+
+    /**
+     * Chooses the next key press, blocking (e.g. to simulate the player's reaction time) as long as needed.
+     *
+     * @return - the slot to press, or -1 if there is nothing to press yet (the strategy is asked again).
+     * @throws InterruptedException - if the thread is interrupted (the game is terminating).
+     */
+    int nextKey() throws InterruptedException;
+
+    /**
+     * Creates the configured strategy of a computer player ("Random" if the configured name is unknown).
+     *
+     * @param env    - the environment object.
+     * @param table  - the table object.
+     * @param player - the computer player.
+     * @return - the strategy.
+     */
+    static ComputerStrategy create(Env env, Table table, Player player) {
+        switch (env.config.computerStrategy.toLowerCase()) {
+            case "sets":
+                return new SetStrategy(env, table, player);
+            case "random":
+                return new RandomStrategy(env, player);
+            default:
+                env.logger.warning("unknown computer strategy " + env.config.computerStrategy + ", using Random");
+                return new RandomStrategy(env, player);
+        }
+    }
+}
@@ -1,12 +1,15 @@
 package bguspl.set.ex;
 
 import bguspl.set.Env;
+import bguspl.set.LatencyHistogram;
+import bguspl.set.SetTracker;
 
-import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
-import java.util.Vector;
-import java.util.ArrayList;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
 
 /**
  * This class manages the dealer's threads and data
@@ -25,9 +28,15 @@ public class Dealer implements Runnable {
     private final Player[] players;
 
     /**
-     * The list of card ids that are left in the dealer's deck.
+     * The card ids that are left in the dealer's deck (the first deckSize entries, in no particular order).
      */
-    private final List<Integer> deck;
+    private final int[] deck;
+    private int deckSize;
+
+    /**
+     * The live count of legal sets among the cards in the deck and on the table.
+     */
+    private final SetTracker setsInGame;
 
     /**
      * True iff game should be terminated.
@@ -37,12 +46,22 @@ public class Dealer implements Runnable {
     /**
      * The time when the dealer needs to reshuffle the deck due to turn timeout.
      */
-    private long reshuffleTime = Long.MAX_VALUE;
+    private volatile long reshuffleTime = Long.MAX_VALUE;
+
+    /**
+     * The number of milliseconds between countdown display updates during the warning time (the display frame rate).
+     */
+    private static final long WARNING_TICK_MILLIS = 16;
 
     /**
-     * The list of card slots waiting removal from the table.
+     * A single timer thread shared by the dealers of all tables, firing their countdown display updates.
      */
-    private Vector<Integer> slotsWaitingRemoval;
+    private static final ScheduledThreadPoolExecutor countdownTimer = createCountdownTimer();
+
+    /**
+     * The next scheduled countdown display update (null if the countdown is not running).
+     */
+    private ScheduledFuture<?> nextTick;
 
     /**
      * True if there are empty slots on the table where cards can be placed.
@@ -50,19 +69,39 @@ public class Dealer implements Runnable {
     private volatile boolean pendingPlaceCards;
 
     /**
-     * Lock used for synchronization during the initialization of the player threads.
+     * The source of the dealer's random choices (seeded by the configuration).
+     */
+    private final Random random;
+
+    /**
+     * The counters and latency histograms of the game.
+     */
+    private final GameMetrics metrics;
+
+    /**
+     * The periodic log of the metrics (null if it is not scheduled).
      */
-    private Object initializetionLock;
+    private ScheduledFuture<?> metricsDump;
+
+    /**
+     * Records the events of the game for replay (null if the game is not recorded).
+     */
+    private final GameRecorder recorder;
 
     public Dealer(Env env, Table table, Player[] players) {
         this.env = env;
         this.table = table;
         this.players = players;
 
-        deck = IntStream.range(0, env.config.deckSize).boxed().collect(Collectors.toList());
-        slotsWaitingRemoval = new Vector<>();
-        initializetionLock = new Object();
-
+        deck = new int[env.config.deckSize];
+        for (int card = 0; card < deck.length; card++)
+            deck[card] = card;
+        deckSize = deck.length;
+        setsInGame = new SetTracker(env.config, env.util);
+        random = new Random(env.config.randomSeed);
+        metrics = new GameMetrics(players);
+        recorder = GameRecorder.open(env);
+        table.setRecorder(recorder);
     }
 
     /**
@@ -71,36 +110,45 @@ public class Dealer implements Runnable {
     @Override
     public void run() {
         env.logger.info("thread " + Thread.currentThread().getName() + " starting.");
+        startMetrics();
         initializePlayersThreads();
         while (!shouldFinish()) {
             placeCardsOnTable();
             timerLoop();
             updateTimerDisplay(false);
+            if (!terminate) metrics.reshuffles.incrementAndGet();
             removeAllCardsFromTable();
         }
 
         // Perform final game actions
         announceWinners();
         terminate();
+        closeRecorder();
+        stopMetrics();
         env.logger.info("thread " + Thread.currentThread().getName() + " terminated.");
     }
 
     /**
      * The inner loop of the dealer thread that runs as long as the countdown did not time out.
+     * The countdown restarts every time a set is collected.
      */
     private void timerLoop() {
-        reshuffleTime = System.currentTimeMillis() + env.config.turnTimeoutMillis;
+        updateTimerDisplay(true);
         while (!terminate && System.currentTimeMillis() < reshuffleTime) {
-            sleepUntilWokenOrTimeout();
-            placeCardsOnTable();
+            long hintsDue = env.config.hints ? table.hints() : 0;
+            sleepUntilWokenOrTimeout(hintsDue);
+            if (pendingPlaceCards) {
+                placeCardsOnTable();
+                updateTimerDisplay(true);
+            }
         }
+        stopCountdown();
     }
 
     /**
      * Called when the game should be terminated.
      */
     public void terminate() {
-        System.out.println("Dealer.terminate");
         terminate = true;
 
         // Terminate player threads
@@ -108,8 +156,10 @@ public class Dealer implements Runnable {
             players[i - 1].terminate();
 
         // Notify the dealer thread to wake up and terminate
-        Thread.currentThread().interrupt();
-
+        stopCountdown();
+        synchronized (this) {
+            notifyAll();
+        }
     }
 
     /**
@@ -118,38 +168,25 @@ public class Dealer implements Runnable {
      * @return true iff the game should be finished.
      */
     private boolean shouldFinish() {
-        return terminate || env.util.findSets(deck, 1).size() == 0;
+        return terminate || !setsInGame.hasSets();
     }
 
     /**
-     * Checks cards should be removed from the table and removes them.
+     * Removes a set of cards collected by a player from the table and wakes the dealer to refill the slots.
+     *
+     * @param slots the slots of the set (owned by the caller)
+     * @param cards the cards of the set
      */
-    private void removeCardsFromTable() {
-        synchronized (table) {
-            // Iterate over the slots waiting for removal
-            while (!slotsWaitingRemoval.isEmpty()) {
-                Integer playerId = slotsWaitingRemoval.remove(0);
-                removeCardsForPlayer(playerId);
-            }
-
-            // The player notifies the dealer that the cards have been removed
-            pendingPlaceCards = true;
-            synchronized (this) {
-                notifyAll();
-            }
-
+    private void removeCardsFromTable(int[] slots, int[] cards) {
+        for (int i = 0; i < slots.length; i++) {
+            table.removeCard(slots[i]);
+            setsInGame.remove(cards[i]);
         }
-    }
 
-    /**
-     * Removes a set of cards with a player's tokens from the table.
-     *
-     * @param playerId the ID of the player whose set are to be removed
-     */
-    private void removeCardsForPlayer(int playerId) {
-        Vector<Integer> tokens = new Vector<>(table.tokenPlacement[playerId]);
-        for (int slot : tokens) {
-            table.removeCard(slot);
+        // Notify the dealer that there are empty slots to fill
+        pendingPlaceCards = true;
+        synchronized (this) {
+            notifyAll();
         }
     }
 
@@ -157,53 +194,47 @@ public class Dealer implements Runnable {
      * Check if any cards can be removed from the deck and placed on the table.
      */
     private void placeCardsOnTable() {
-        synchronized (table) {
-            int currentCardsOnTable = table.countCards();
+        pendingPlaceCards = false;
+        int currentCardsOnTable = table.countCards();
 
-            // If the table is already full, no need to place more cards
-            if (currentCardsOnTable == env.config.tableSize)
-                return;
+        // If the table is already full, no need to place more cards
+        if (currentCardsOnTable == env.config.tableSize)
+            return;
 
-            // If there are not enough cards for a set or if no sets are possible terminate game
-            if (deck.size() + currentCardsOnTable < env.config.featureSize || env.util.findSets(getListOfCardsInGame(), 1).isEmpty()) {
-                terminate = true;
-                return;
-            }
+        // If there are not enough cards for a set or if no sets are possible terminate game
+        if (deckSize + currentCardsOnTable < env.config.featureSize || !setsInGame.hasSets()) {
+            terminate = true;
+            return;
+        }
 
-            // Randomly select cards from the deck and place them on the table until it is full or the deck is empty
-            for (int slot = 0; slot < table.slotToCard.length && currentCardsOnTable != env.config.tableSize && !deck.isEmpty(); slot++) {
-                if (table.slotToCard[slot] == null) {
-                    int randomIndex = (int) (Math.random() * deck.size());
-                    table.placeCard(deck.remove(randomIndex), slot);
-                    currentCardsOnTable++;
-                }
+        // Randomly select cards from the deck and place them on the table until it is full or the deck is empty
+        long start = System.nanoTime();
+        for (int slot = 0; slot < table.slotToCard.length && currentCardsOnTable != env.config.tableSize && deckSize > 0; slot++) {
+            table.lockSlot(slot);
+            if (table.slotToCard[slot] == null) {
+                table.placeCard(drawCard(), slot);
+                currentCardsOnTable++;
             }
-            pendingPlaceCards = false;
-
-
+            table.unlockSlot(slot);
         }
+        metrics.tableUpdate.record(System.nanoTime() - start);
     }
 
 
     /**
-     * Sleep for a fixed amount of time or until the thread is awakened for some purpose.
-     * The method sleeps for a default duration of 900 milliseconds to avoid busy waiting,
-     * while picking a deafult value that is close to a second to insure the timer is working correctly.
+     * Sleep until the turn times out or the thread is awakened by a collected set or by termination.
+     * The countdown display is updated by the shared timer thread, so the dealer does not wake up for it.
+     *
+     * @param maxMillis - the longest time to sleep, e.g. until held back hints are due (0 for no limit).
      */
-    private void sleepUntilWokenOrTimeout() {
-        reshuffleTime = System.currentTimeMillis() + env.config.turnTimeoutMillis;
-        while (reshuffleTime - System.currentTimeMillis() > 0 && !pendingPlaceCards) {
-
-            long updateTime = 900;
-            long currentTime = reshuffleTime - System.currentTimeMillis();
-            // If the time left is less than the warning time in seconds then update the timer every 10 milliseconds
-            if (currentTime - (currentTime%1000) < env.config.turnTimeoutWarningMillis) updateTime = 10;
-
-            updateTimerDisplay(false);
-
-            synchronized (this) {
+    private void sleepUntilWokenOrTimeout(long maxMillis) {
+        long wakeTime = maxMillis > 0 ? Math.min(reshuffleTime, System.currentTimeMillis() + maxMillis) : reshuffleTime;
+        synchronized (this) {
+            while (!terminate && !pendingPlaceCards) {
+                long timeLeft = wakeTime - System.currentTimeMillis();
+                if (timeLeft <= 0) return;
                 try {
-                    wait(updateTime);
+                    wait(timeLeft);
                 } catch (InterruptedException ignored) {}
             }
         }
@@ -217,6 +248,7 @@ public class Dealer implements Runnable {
             // Reset the countdown timer and reshuffle time
             env.ui.setCountdown(env.config.turnTimeoutMillis, false);
             reshuffleTime = System.currentTimeMillis() + env.config.turnTimeoutMillis;
+            scheduleTick();
             return;
         }
 
@@ -232,23 +264,115 @@ public class Dealer implements Runnable {
 
     }
 
+    /**
+     * Schedules the next countdown display update: when the displayed second changes, or at the display frame rate
+     * during the warning time.
+     */
+    private synchronized void scheduleTick() {
+        if (nextTick != null) nextTick.cancel(false);
+        nextTick = null;
+
+        long timeLeft = reshuffleTime - System.currentTimeMillis();
+        if (terminate || env.config.turnTimeoutMillis <= 0 || timeLeft <= 0) return;
+
+        boolean warning = timeLeft - timeLeft % 1000 <= env.config.turnTimeoutWarningMillis;
+        long delay = warning ? Math.min(WARNING_TICK_MILLIS, timeLeft) : timeLeft % 1000 + 1;
+        nextTick = countdownTimer.schedule(this::tick, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * A countdown display update (runs on the shared timer thread).
+     */
+    private void tick() {
+        if (terminate) return;
+        updateTimerDisplay(false);
+        scheduleTick();
+    }
+
+    /**
+     * Stops the countdown display updates.
+     */
+    private synchronized void stopCountdown() {
+        if (nextTick != null) nextTick.cancel(false);
+        nextTick = null;
+    }
+
+    /**
+     * Creates the timer thread shared by all dealers (a daemon, so it never keeps the program alive).
+     */
+    private static ScheduledThreadPoolExecutor createCountdownTimer() {
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "dealer-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.setRemoveOnCancelPolicy(true);
+        return timer;
+    }
+
+    /**
+     * Removes a random card from the deck, moving the last card of the deck into its place (no shifting).
+     *
+     * @return the card drawn
+     */
+    private int drawCard() {
+        int index = random.nextInt(deckSize);
+        int card = deck[index];
+        deck[index] = deck[--deckSize];
+        return card;
+    }
+
+    /**
+     * Registers the metrics with JMX, and schedules their periodic log on the shared timer thread.
+     */
+    private void startMetrics() {
+        metrics.register(env.logger);
+        long period = env.config.metricsDumpMillis;
+        if (period > 0)
+            metricsDump = countdownTimer.scheduleAtFixedRate(this::logMetrics, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the periodic log of the metrics, logs them one last time and removes them from JMX.
+     */
+    private void stopMetrics() {
+        if (metricsDump != null) metricsDump.cancel(false);
+        logMetrics();
+        metrics.unregister();
+    }
+
+    private void logMetrics() {
+        if (env.logger.isLoggable(Level.INFO)) env.logger.info("game metrics:" + System.lineSeparator() + metrics);
+    }
+
+    /**
+     * Writes the rest of the event log (if the game is recorded).
+     */
+    private void closeRecorder() {
+        if (recorder == null) return;
+        table.setRecorder(null);
+        try {
+            recorder.close();
+        } catch (IOException e) {
+            env.logger.severe("cannot write the event log " + env.config.eventLogFile + ": " + e);
+        }
+    }
+
     /**
      * Returns all the cards from the table to the deck.
      */
     private void removeAllCardsFromTable() {
-        synchronized (table) {
-            // Add all the cards from the table to the deck
-            for (int slot = 0; slot < table.slotToCard.length; slot++) {
-                if (table.slotToCard[slot] != null) {
-                    deck.add(table.slotToCard[slot]);
-                    table.removeCard(slot);
-                }
+        // Add all the cards from the table to the deck
+        long start = System.nanoTime();
+        for (int slot = 0; slot < table.slotToCard.length; slot++) {
+            table.lockSlot(slot);
+            if (table.slotToCard[slot] != null) {
+                deck[deckSize++] = table.slotToCard[slot];
+                table.removeCard(slot);
             }
-
-            // Clear waiting for removal and reset the timer
-            slotsWaitingRemoval.clear();
+            table.unlockSlot(slot);
         }
-
+        metrics.tableUpdate.record(System.nanoTime() - start);
     }
 
     /**
@@ -295,36 +419,13 @@ public class Dealer implements Runnable {
 
     /**
      * Initializes and starts threads for all players.
+     * Key presses are queued until a player's thread takes them, so there is no need to wait for the threads to start.
      */
     private void initializePlayersThreads() {
-        for (int i = 0; i < players.length; i++) {
-            players[i].setAPlayerThreads();
-            players[i].startPlayerThreads();
-            
-            // Wait for notification from the player thread that it has finished initializing
-            synchronized(initializetionLock){
-                try{initializetionLock.wait();
-                }catch(InterruptedException exception) {}
-            }
-
-        }
-    }
-
-    /**
-     * Returns a list of cards that are on the table and in the deck.
-     * 
-     * @return List of cards that are on the table and in the deck
-     */
-    private List<Integer> getListOfCardsInGame() {
-        List<Integer> cards = new ArrayList<>(deck);
-
-        // Add cards from the table
-        for (Integer card : table.slotToCard) {
-            if (card != null) {
-                cards.add(card);
-            }
+        for (Player player : players) {
+            player.setAPlayerThreads();
+            player.startPlayerThreads();
         }
-        return cards;
     }
 
     /**
@@ -339,41 +440,84 @@ public class Dealer implements Runnable {
     /**
      * Checks if a player's set is valid.
      *
-     * @param playerId the ID of the player
+     * @param playerId     the ID of the player
+     * @param claimVersion the version of the table the player's set was built against
      * @return true if the set is valid, false otherwise
      */
-    public boolean checkSet(Integer playerId) {
-        // handle the case where the player's set is invalid
-        if (table.tokenPlacement[playerId] == null || table.tokenPlacement[playerId].size() != env.config.featureSize) {
-            players[playerId].status = PlayerState.Playing;
-            return false; // Invalid set
-        }
+    public boolean checkSet(int playerId, long claimVersion) {
+        // handle the case where the player's set is invalid, or stale (a card of the set was moved since the claim)
+        int[] slots = table.getTokens(playerId);
+        if (slots.length != env.config.featureSize || table.snapshot().changedSince(slots, claimVersion))
+            return rejectStaleClaim(playerId); // Invalid set
+
+        // Own the slots of the set, so claims sharing a slot are checked one at a time in arrival order
+        long waitStart = System.nanoTime();
+        table.lockSlots(slots);
+        metrics.slotWait.record(System.nanoTime() - waitStart);
+        try {
+            // the slots cannot change while they are owned, so this view of them is final
+            TableSnapshot view = table.snapshot();
+            // an earlier claim (or a reshuffle) took a card, and the player's token with it
+            if (view.changedSince(slots, claimVersion))
+                return rejectStaleClaim(playerId);
+
+            int[] cards = new int[slots.length];
+            for (int i = 0; i < slots.length; i++) {
+                if (!table.hasToken(playerId, slots[i]))
+                    return rejectStaleClaim(playerId);
+                cards[i] = view.card(slots[i]);
+            }
 
-        int[] cards = players[playerId].getTokensArray();
-        boolean isCorrect = env.util.testSet(cards);
+            boolean isCorrect = env.util.testSet(cards);
+            if (recorder != null) recorder.claim(playerId, cards, isCorrect);
+            (isCorrect ? metrics.legalClaims : metrics.illegalClaims).incrementAndGet();
 
-        // handle the case where the player has a correct set
-        if (isCorrect) {
-            players[playerId].status = PlayerState.PointFreeze;
-            slotsWaitingRemoval.add(playerId);
-            removeCardsFromTable();
-        }
+            // handle the case where the player has a correct set
+            if (isCorrect) {
+                players[playerId].point(); // scored before the cards leave, as their removal may end the game
+                removeCardsFromTable(slots, cards);
+            }
+
+            // handle the case where the player has an incorrect set
+            else {
+                players[playerId].status = PlayerState.PenaltyFreeze;
+            }
 
-        // handle the case where the player has an incorrect set
-        else {
-            players[playerId].status = PlayerState.PenaltyFreeze;
+            return isCorrect;
+        } finally {
+            table.unlockSlots(slots);
         }
+    }
+
+    /**
+     * Rejects a claim without checking it, because it is not a full set or a card of it moved since it was made.
+     *
+     * @param playerId the ID of the player
+     * @return false (the claim is not a valid set)
+     */
+    private boolean rejectStaleClaim(int playerId) {
+        if (recorder != null) recorder.staleClaim(playerId);
+        metrics.staleClaims.incrementAndGet();
+        players[playerId].status = PlayerState.Playing;
+        return false;
+    }
 
-        return isCorrect;
+    /**
+     * Returns the histogram of the time it took players to get a verdict on their sets.
+     *
+     * @return the check latency histogram
+     */
+    public LatencyHistogram getCheckLatency() {
+        return metrics.getCheckLatency();
     }
-   
+
     /**
-     * Returns the initializationLock object.
+     * Returns the counters and latency histograms of the game.
      *
-     * @return the initializationLock object
+     * @return the game metrics
      */
-    public Object getInitializetionLock() {
-            return initializetionLock;
-        }
+    public GameMetrics getMetrics() {
+        return metrics;
+    }
 
 }
\ No newline at end of file
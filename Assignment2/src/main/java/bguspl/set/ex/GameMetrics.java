@@ -0,0 +1,198 @@
+package bguspl.set.ex;
+
+import bguspl.set.LatencyHistogram;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * The counters and latency histograms of a game. They are updated by the dealer and the players with a few atomic
+ * operations per claim or per table update (the histograms are lock-free), so they stay on in every game, and they
+ * can be read at any time: through JMX (as bguspl.set:type=Game,id=N) and as text (the dealer logs it periodically).
+ */
+public class GameMetrics implements GameMetricsMXBean {
+
+    private static final AtomicInteger nextId = new AtomicInteger();
+
+    /**
+     * The time it took players to get a verdict on their sets (from claiming the set until checkSet returned).
+     */
+    final LatencyHistogram checkLatency = new LatencyHistogram();
+
+    /**
+     * The time a claim waited for the ownership of its slots.
+     */
+    final LatencyHistogram slotWait = new LatencyHistogram();
+
+    /**
+     * The time it took the dealer to refill or to clear the table (owning one slot at a time).
+     */
+    final LatencyHistogram tableUpdate = new LatencyHistogram();
+
+    final AtomicLong legalClaims = new AtomicLong();
+    final AtomicLong illegalClaims = new AtomicLong();
+    final AtomicLong staleClaims = new AtomicLong();
+    final AtomicLong reshuffles = new AtomicLong();
+
+    private final Player[] players;
+    private ObjectName name;
+
+    /**
+     * @param players - the players of the game (may be filled in later).
+     */
+    GameMetrics(Player[] players) {
+        this.players = players;
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server (under a new id).
+     *
+     * @param logger - the logger to report a failure to.
+     */
+    synchronized void register(Logger logger) {
+        if (name != null) return;
+        try {
+            ObjectName objectName = new ObjectName("bguspl.set:type=Game,id=" + nextId.incrementAndGet());
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            name = objectName;
+        } catch (JMException | SecurityException e) {
+            logger.warning("cannot register the game metrics with JMX: " + e);
+        }
+    }
+
+    /**
+     * Removes the metrics from the platform MBean server.
+     */
+    synchronized void unregister() {
+        if (name == null) return;
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(name)) server.unregisterMBean(name);
+        } catch (JMException ignored) {
+            // already gone
+        }
+        name = null;
+    }
+
+    /**
+     * @return - the JMX name of the metrics (null if they are not registered).
+     */
+    public synchronized ObjectName getName() {
+        return name;
+    }
+
+    /**
+     * @return - the histogram of the time it took players to get a verdict on their sets.
+     */
+    public LatencyHistogram getCheckLatency() {
+        return checkLatency;
+    }
+
+    @Override
+    public long getChecks() {
+        return legalClaims.get() + illegalClaims.get();
+    }
+
+    @Override
+    public long getLegalClaims() {
+        return legalClaims.get();
+    }
+
+    @Override
+    public long getIllegalClaims() {
+        return illegalClaims.get();
+    }
+
+    @Override
+    public long getStaleClaims() {
+        return staleClaims.get();
+    }
+
+    @Override
+    public long getReshuffles() {
+        return reshuffles.get();
+    }
+
+    @Override
+    public double getCheckLatencyMeanMicros() {
+        return checkLatency.mean() / 1e3;
+    }
+
+    @Override
+    public double getCheckLatencyP50Micros() {
+        return checkLatency.percentile(50) / 1e3;
+    }
+
+    @Override
+    public double getCheckLatencyP99Micros() {
+        return checkLatency.percentile(99) / 1e3;
+    }
+
+    @Override
+    public double getCheckLatencyMaxMicros() {
+        return checkLatency.max() / 1e3;
+    }
+
+    @Override
+    public double getSlotWaitP99Micros() {
+        return slotWait.percentile(99) / 1e3;
+    }
+
+    @Override
+    public double getSlotWaitMaxMicros() {
+        return slotWait.max() / 1e3;
+    }
+
+    @Override
+    public double getTableUpdateP99Micros() {
+        return tableUpdate.percentile(99) / 1e3;
+    }
+
+    @Override
+    public double getTableUpdateMaxMicros() {
+        return tableUpdate.max() / 1e3;
+    }
+
+    @Override
+    public long[] getDroppedKeys() {
+        long[] dropped = new long[players.length];
+        for (int i = 0; i < players.length; i++)
+            dropped[i] = players[i] == null ? 0 : players[i].droppedKeys();
+        return dropped;
+    }
+
+    @Override
+    public int[] getQueuedKeys() {
+        int[] queued = new int[players.length];
+        for (int i = 0; i < players.length; i++)
+            queued[i] = players[i] == null ? 0 : players[i].queuedKeys();
+        return queued;
+    }
+
+    @Override
+    public String getSummary() {
+        return String.format("checks: %d (legal: %d, illegal: %d), stale claims: %d, reshuffles: %d%n"
+                        + "check latency (us): %s%nslot wait (us): %s%ntable update (us): %s%n"
+                        + "dropped keys: %s, queued keys: %s",
+                getChecks(), getLegalClaims(), getIllegalClaims(), getStaleClaims(), getReshuffles(),
+                summarize(checkLatency), summarize(slotWait), summarize(tableUpdate),
+                Arrays.toString(getDroppedKeys()), Arrays.toString(getQueuedKeys()));
+    }
+
+    private static String summarize(LatencyHistogram histogram) {
+        return String.format("count: %d mean: %.1f p50: %.1f p99: %.1f max: %.1f", histogram.count(),
+                histogram.mean() / 1e3, histogram.percentile(50) / 1e3, histogram.percentile(99) / 1e3,
+                histogram.max() / 1e3);
+    }
+
+    @Override
+    public String toString() {
+        return getSummary();
+    }
+}
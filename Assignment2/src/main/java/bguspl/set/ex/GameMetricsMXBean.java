@@ -0,0 +1,57 @@
+package bguspl.set.ex;
+
+/**
+ * The metrics of a running game, as exposed through JMX (see GameMetrics). Durations are in microseconds.
+ */
+public interface GameMetricsMXBean {
+
+    /**
+     * @return - the number of claims that were checked (legal or not).
+     */
+    long getChecks();
+
+    long getLegalClaims();
+
+    long getIllegalClaims();
+
+    /**
+     * @return - the number of claims rejected without a check (a card of the set moved since the claim was made).
+     */
+    long getStaleClaims();
+
+    /**
+     * @return - the number of times the dealer collected all the cards because the turn timed out.
+     */
+    long getReshuffles();
+
+    double getCheckLatencyMeanMicros();
+
+    double getCheckLatencyP50Micros();
+
+    double getCheckLatencyP99Micros();
+
+    double getCheckLatencyMaxMicros();
+
+    double getSlotWaitP99Micros();
+
+    double getSlotWaitMaxMicros();
+
+    double getTableUpdateP99Micros();
+
+    double getTableUpdateMaxMicros();
+
+    /**
+     * @return - the number of key presses each player dropped because its queue was full.
+     */
+    long[] getDroppedKeys();
+
+    /**
+     * @return - the number of key presses waiting in each player's queue.
+     */
+    int[] getQueuedKeys();
+
+    /**
+     * @return - all the metrics as text.
+     */
+    String getSummary();
+}
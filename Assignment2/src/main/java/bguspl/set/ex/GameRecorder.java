@@ -0,0 +1,222 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Records the events of a game (the cards dealt and removed, the tokens placed and removed, and the verdicts of the
+ * claims) in a compact binary log, so the game can be replayed offline with GameReplay.
+ * The log starts with a header (MAGIC, VERSION, the seed and the dimensions of the game), followed by one record per
+ * event: the event type (a byte), the microseconds since the previous event and the event fields (unsigned varints).
+ * Events are written in the order they happened on the table: the card events and the claims are recorded while the
+ * slots are owned by the dealer or by the claim.
+ */
+public class GameRecorder implements Closeable {
+
+    /**
+     * The first bytes of an event log ("SETL").
+     */
+    static final int MAGIC = 0x5345544C;
+
+    /**
+     * The version of the log format.
+     */
+    static final int VERSION = 1;
+
+    /**
+     * The event types.
+     */
+    static final byte DEAL = 1;          // slot, card
+    static final byte REMOVE = 2;        // slot (and the tokens on it)
+    static final byte TOKEN_PLACED = 3;  // player, slot
+    static final byte TOKEN_REMOVED = 4; // player, slot
+    static final byte CLAIM = 5;         // player, legal (0 or 1), featureSize cards
+    static final byte STALE_CLAIM = 6;   // player
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Orders the events of the players and the dealer. A lock rather than a monitor, since the buffer is sometimes
+     * written out while it is held, and a virtual player thread blocked on a monitor would pin its carrier thread.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final OutputStream out;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int length;
+    private long lastNanos = System.nanoTime();
+    private boolean closed;
+
+    /**
+     * Creates a recorder and writes the header of the log.
+     *
+     * @param out    - the stream to write the log to (closed with the recorder).
+     * @param config - the configuration of the recorded game.
+     */
+    public GameRecorder(OutputStream out, Config config) {
+        this.out = out;
+        writeInt(MAGIC);
+        writeVarint(VERSION);
+        writeLong(config.randomSeed);
+        writeVarint(config.featureSize);
+        writeVarint(config.featureCount);
+        writeVarint(config.tableSize);
+        writeVarint(config.players);
+    }
+
+    /**
+     * Opens the configured event log of a game.
+     *
+     * @param env - the game environment.
+     * @return - the recorder, or null if no event log is configured (or it cannot be created).
+     */
+    static GameRecorder open(Env env) {
+        if (env.config.eventLogFile.isEmpty()) return null;
+        try {
+            return new GameRecorder(Files.newOutputStream(Paths.get(env.config.eventLogFile)), env.config);
+        } catch (IOException e) {
+            env.logger.severe("cannot create the event log " + env.config.eventLogFile + ": " + e);
+            return null;
+        }
+    }
+
+    /**
+     * Records a card placed on the table.
+     */
+    void deal(int slot, int card) {
+        lock.lock();
+        try {
+            if (!event(DEAL, 2)) return;
+            writeVarint(slot);
+            writeVarint(card);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records a card removed from the table (with all the tokens on it).
+     */
+    void remove(int slot) {
+        lock.lock();
+        try {
+            if (!event(REMOVE, 1)) return;
+            writeVarint(slot);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records a token placed or removed.
+     */
+    void token(int player, int slot, boolean placed) {
+        lock.lock();
+        try {
+            if (!event(placed ? TOKEN_PLACED : TOKEN_REMOVED, 2)) return;
+            writeVarint(player);
+            writeVarint(slot);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records the verdict of a checked claim.
+     */
+    void claim(int player, int[] cards, boolean legal) {
+        lock.lock();
+        try {
+            if (!event(CLAIM, 2 + cards.length)) return;
+            writeVarint(player);
+            writeVarint(legal ? 1 : 0);
+            for (int card : cards)
+                writeVarint(card);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records a claim rejected without a check (it was not a full set, or a card of it moved since it was made).
+     */
+    void staleClaim(int player) {
+        lock.lock();
+        try {
+            if (!event(STALE_CLAIM, 1)) return;
+            writeVarint(player);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes the rest of the log and closes it. Later events are ignored.
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) return;
+            closed = true;
+            try {
+                out.write(buffer, 0, length);
+            } finally {
+                out.close();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Starts the record of an event, making room for it in the buffer (writing the buffer out if needed).
+     *
+     * @param type   - the event type.
+     * @param fields - the number of fields of the event.
+     * @return - false if the log is closed (or could not be written), and the event should be ignored.
+     */
+    private boolean event(byte type, int fields) {
+        if (closed) return false;
+        if (length + 1 + 10 * (1 + fields) > buffer.length) {
+            try {
+                out.write(buffer, 0, length);
+            } catch (IOException e) {
+                closed = true; // the rest of the game cannot be replayed anyway
+                return false;
+            }
+            length = 0;
+        }
+
+        long now = System.nanoTime();
+        buffer[length++] = type;
+        writeVarint((now - lastNanos) / 1000);
+        lastNanos = now;
+        return true;
+    }
+
+    private void writeVarint(long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[length++] = (byte) value;
+    }
+
+    private void writeInt(int value) {
+        for (int shift = 24; shift >= 0; shift -= 8)
+            buffer[length++] = (byte) (value >>> shift);
+    }
+
+    private void writeLong(long value) {
+        writeInt((int) (value >>> 32));
+        writeInt((int) value);
+    }
+}
@@ -0,0 +1,182 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Util;
+import bguspl.set.UtilImpl;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Replays a game recorded by GameRecorder as fast as possible (without the players, the timing or the user interface):
+ * the cards and tokens are moved as recorded, every claim is checked again against the replayed table, and the scores
+ * are rebuilt from the verdicts. A mismatch means the log does not describe a consistent game.
+ */
+public class GameReplay {
+
+    /**
+     * The outcome of a replayed game.
+     */
+    public static class Result {
+        public final long seed;
+        public long events;
+        public long deals;
+        public long removes;
+        public long tokens;
+        public long claims;
+        public long legalClaims;
+        public long staleClaims;
+        public long mismatches;
+        public long recordedMicros;
+        public final int[] scores;
+
+        Result(long seed, int players) {
+            this.seed = seed;
+            this.scores = new int[players];
+        }
+
+        @Override
+        public String toString() {
+            return "seed: " + seed + " events: " + events + " deals: " + deals + " removes: " + removes
+                    + " tokens: " + tokens + " claims: " + claims + " (legal: " + legalClaims + ", stale: "
+                    + staleClaims + ") mismatches: " + mismatches + " scores: " + Arrays.toString(scores)
+                    + " recorded time: " + recordedMicros / 1000 + " ms";
+        }
+    }
+
+    /**
+     * The replay's main function.
+     *
+     * @param args - the event log files to replay.
+     */
+    public static void main(String[] args) throws IOException {
+        for (String filename : args) {
+            long start = System.nanoTime();
+            Result result;
+            try (InputStream in = Files.newInputStream(Paths.get(filename))) {
+                result = replay(in);
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.println(filename + ": " + result);
+            System.out.printf("replayed in %.3f s (%.0f events/sec)%n", seconds, result.events / seconds);
+        }
+    }
+
+    /**
+     * Replays a recorded game.
+     *
+     * @param log - the event log (not closed).
+     * @return - the outcome of the game.
+     * @throws IOException - if the log cannot be read or is not an event log.
+     */
+    public static Result replay(InputStream log) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(log));
+        if (in.readInt() != GameRecorder.MAGIC) throw new IOException("not an event log");
+        int version = readVarint(in);
+        if (version != GameRecorder.VERSION) throw new IOException("unsupported event log version " + version);
+
+        long seed = in.readLong();
+        int featureSize = readVarint(in);
+        int featureCount = readVarint(in);
+        int tableSize = readVarint(in);
+        int players = readVarint(in);
+        Util util = createUtil(featureSize, featureCount);
+
+        Result result = new Result(seed, players);
+        int[] slotToCard = new int[tableSize];
+        Arrays.fill(slotToCard, TableSnapshot.EMPTY);
+        boolean[] onTable = new boolean[(int) Math.pow(featureSize, featureCount)];
+        boolean[][] tokens = new boolean[players][tableSize];
+        int[] claim = new int[featureSize];
+
+        int type;
+        while ((type = in.read()) != -1) {
+            result.events++;
+            result.recordedMicros += readVarLong(in);
+            switch (type) {
+                case GameRecorder.DEAL: {
+                    int slot = readVarint(in);
+                    int card = readVarint(in);
+                    if (slotToCard[slot] != TableSnapshot.EMPTY || onTable[card]) result.mismatches++;
+                    slotToCard[slot] = card;
+                    onTable[card] = true;
+                    result.deals++;
+                    break;
+                }
+                case GameRecorder.REMOVE: {
+                    int slot = readVarint(in);
+                    if (slotToCard[slot] == TableSnapshot.EMPTY) result.mismatches++;
+                    else onTable[slotToCard[slot]] = false;
+                    slotToCard[slot] = TableSnapshot.EMPTY;
+                    for (boolean[] playerTokens : tokens)
+                        playerTokens[slot] = false;
+                    result.removes++;
+                    break;
+                }
+                case GameRecorder.TOKEN_PLACED:
+                case GameRecorder.TOKEN_REMOVED: {
+                    int player = readVarint(in);
+                    int slot = readVarint(in);
+                    tokens[player][slot] = type == GameRecorder.TOKEN_PLACED;
+                    result.tokens++;
+                    break;
+                }
+                case GameRecorder.CLAIM: {
+                    int player = readVarint(in);
+                    boolean legal = readVarint(in) == 1;
+                    for (int i = 0; i < claim.length; i++) {
+                        claim[i] = readVarint(in);
+                        if (!onTable[claim[i]]) result.mismatches++;
+                    }
+                    if (util.testSet(claim) != legal) result.mismatches++;
+                    if (legal) {
+                        result.scores[player]++;
+                        result.legalClaims++;
+                    }
+                    result.claims++;
+                    break;
+                }
+                case GameRecorder.STALE_CLAIM:
+                    readVarint(in);
+                    result.staleClaims++;
+                    break;
+                default:
+                    throw new IOException("unknown event type " + type + " after " + result.events + " events");
+            }
+        }
+        return result;
+    }
+
+    private static Util createUtil(int featureSize, int featureCount) {
+        Logger logger = Logger.getLogger("SetReplayLogger");
+        logger.setUseParentHandlers(false);
+        Properties properties = new Properties();
+        properties.put("LogLevel", Level.OFF.getName());
+        properties.put("FeatureSize", Integer.toString(featureSize));
+        properties.put("FeatureCount", Integer.toString(featureCount));
+        return new UtilImpl(new Config(logger, properties));
+    }
+
+    private static int readVarint(DataInputStream in) throws IOException {
+        return (int) readVarLong(in);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = in.read();
+            if (b == -1) throw new EOFException("truncated event log");
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Keeps the list of the legal sets on the table and prints it as hints.
+ * The list is brought up to date from the table snapshots only when it is asked for (by the hints or by the computer
+ * players): the sets of the cards that left
+ * the table are dropped, and only the sets of the cards that were placed are searched for. The hints are printed
+ * at most once every HINT_INTERVAL_MILLIS, and only if the table changed since they were last printed (a change
+ * within the interval is printed when it ends).
+ */
+class HintService {
+
+    /**
+     * The minimum number of milliseconds between two printings of the hints.
+     */
+    static final long HINT_INTERVAL_MILLIS = 1000;
+
+    private final Env env;
+    private final Table table;
+
+    /**
+     * The snapshot the sets are up to date with.
+     */
+    private TableSnapshot seen;
+
+    /**
+     * The legal sets among the cards of the seen snapshot.
+     */
+    private final List<int[]> sets = new ArrayList<>();
+
+    /**
+     * The time and the table version of the last printing.
+     */
+    private long printedMillis;
+    private long printedVersion = -1;
+
+    HintService(Env env, Table table) {
+        this.env = env;
+        this.table = table;
+        this.seen = new TableSnapshot(table.snapshot().slots());
+    }
+
+    /**
+     * Returns the legal sets on the table at a snapshot.
+     *
+     * @param view - the snapshot of the table.
+     * @return - the sets (copies of the card arrays).
+     */
+    synchronized List<int[]> sets(TableSnapshot view) {
+        update(view);
+        List<int[]> copy = new ArrayList<>(sets.size());
+        for (int[] set : sets)
+            copy.add(set.clone());
+        return copy;
+    }
+
+    /**
+     * Prints the legal sets on the table if it changed since they were last printed. A change within
+     * HINT_INTERVAL_MILLIS of the last printing stays pending, and is printed by the first call after the interval.
+     *
+     * @return - the number of milliseconds until a pending printing is due (0 if none is pending).
+     */
+    long print() {
+        StringBuilder text = new StringBuilder();
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            TableSnapshot view = table.snapshot();
+            if (view.version == printedVersion) return 0;
+            long due = printedMillis + HINT_INTERVAL_MILLIS - now;
+            if (due > 0) return due;
+            update(view);
+            printedMillis = now;
+            printedVersion = seen.version;
+
+            for (int[] set : sets) {
+                int[] slots = new int[set.length];
+                for (int i = 0; i < set.length; i++)
+                    slots[i] = seen.slotOf(set[i]);
+                Arrays.sort(slots);
+                text.append("Hint: Set found: slots: ").append(Arrays.toString(slots))
+                        .append(" features: ").append(Arrays.deepToString(env.util.cardsToFeatures(set)))
+                        .append(System.lineSeparator());
+            }
+        }
+        // printed outside the lock, so a slow console does not hold up the computer players asking for the sets
+        System.out.print(text);
+        return 0;
+    }
+
+    /**
+     * Brings the sets up to date with a snapshot of the table (any snapshot, not only a newer one: only the slots that
+     * differ are searched).
+     */
+    private void update(TableSnapshot current) {
+        if (current.version == seen.version) return;
+
+        // drop the sets of the cards that left the table
+        List<Integer> stayed = new ArrayList<>();
+        List<Integer> placed = new ArrayList<>();
+        for (int slot = 0; slot < current.slots(); slot++) {
+            int before = seen.card(slot);
+            int after = current.card(slot);
+            if (before == after) {
+                if (after != TableSnapshot.EMPTY) stayed.add(after);
+                continue;
+            }
+            if (before != TableSnapshot.EMPTY) sets.removeIf(set -> contains(set, before));
+            if (after != TableSnapshot.EMPTY) placed.add(after);
+        }
+
+        // add the sets of each placed card with the cards that stayed and the cards placed before it
+        int[] set = new int[env.config.featureSize];
+        for (int card : placed) {
+            set[0] = card;
+            addSets(stayed, set, 1, 0);
+            stayed.add(card);
+        }
+        seen = current;
+    }
+
+    /**
+     * Completes the first depth cards of a set with cards from others (from index from on), and adds the legal sets.
+     */
+    private void addSets(List<Integer> others, int[] set, int depth, int from) {
+        if (depth == set.length) {
+            if (env.util.testSet(set)) sets.add(set.clone());
+            return;
+        }
+        for (int i = from; i <= others.size() - (set.length - depth); i++) {
+            set[depth] = others.get(i);
+            addSets(others, set, depth + 1, i + 1);
+        }
+    }
+
+    private static boolean contains(int[] set, int card) {
+        for (int element : set)
+            if (element == card) return true;
+        return false;
+    }
+}
@@ -0,0 +1,111 @@
+package bguspl.set.ex;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A bounded queue of key presses (slots) for a single producer (the input thread or the computer thread) and a single
+ * consumer (the player thread). The slots are kept in a primitive ring buffer, so nothing is allocated per key
+ * press, and a key press that does not fit is dropped and counted instead of blocking the producer.
+ */
+class KeyQueue {
+
+    private final int capacity;
+    private final int[] ring;
+    private final int mask;
+
+    /**
+     * The number of keys taken so far (written by the consumer only).
+     */
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * The number of keys offered so far (written by the producer only).
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * The number of keys dropped because the queue was full.
+     */
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * The consumer thread while it is parked waiting for a key (null otherwise).
+     */
+    private volatile Thread waiting;
+
+    /**
+     * @param capacity - the maximum number of keys in the queue.
+     */
+    KeyQueue(int capacity) {
+        this.capacity = capacity;
+        this.ring = new int[Integer.highestOneBit(Math.max(capacity, 1) * 2 - 1)];
+        this.mask = ring.length - 1;
+    }
+
+    /**
+     * Adds a key to the queue (called by the producer only).
+     *
+     * @param slot - the slot that was pressed.
+     * @return - true iff the key was added (false if it was dropped).
+     */
+    boolean offer(int slot) {
+        long t = tail.get();
+        if (t - head.get() >= capacity) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        ring[(int) t & mask] = slot;
+        tail.set(t + 1);
+
+        Thread consumer = waiting;
+        if (consumer != null) LockSupport.unpark(consumer);
+        return true;
+    }
+
+    /**
+     * Removes the oldest key, waiting for one if the queue is empty (called by the consumer only).
+     *
+     * @return - the slot that was pressed.
+     * @throws InterruptedException - if the consumer is interrupted while waiting.
+     */
+    int take() throws InterruptedException {
+        long h = head.get();
+        while (h == tail.get()) {
+            if (Thread.interrupted()) throw new InterruptedException();
+            waiting = Thread.currentThread();
+            // check again after announcing the wait, so a key offered in between is not missed
+            if (h == tail.get()) LockSupport.park(this);
+            waiting = null;
+        }
+        int slot = ring[(int) h & mask];
+        head.lazySet(h + 1);
+        return slot;
+    }
+
+    /**
+     * Removes all the keys in the queue (called by the consumer only).
+     *
+     * @return - the number of keys removed.
+     */
+    int clear() {
+        long h = head.get();
+        long t = tail.get();
+        head.lazySet(t);
+        return (int) (t - h);
+    }
+
+    /**
+     * @return - the number of keys in the queue.
+     */
+    int size() {
+        return (int) (tail.get() - head.get());
+    }
+
+    /**
+     * @return - the number of keys dropped so far because the queue was full.
+     */
+    long dropped() {
+        return dropped.get();
+    }
+}
@@ -1,8 +1,10 @@
 package bguspl.set.ex;
 
 import bguspl.set.Env;
+import bguspl.set.Threads;
 
-import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
 
 
 /**
@@ -71,12 +73,27 @@ public class Player implements Runnable {
     /**
      * The current score of the player.
      */
-    private int score;
+    private volatile int score;
 
     /**
-     * The actions performed by the player.
+     * The actions performed by the player (key presses that do not fit are dropped).
      */
-    private LinkedBlockingDeque<Integer> playerActions;
+    private final KeyQueue playerActions;
+
+    /**
+     * The number of key presses that were accepted but not processed yet.
+     */
+    private final AtomicInteger unprocessedActions = new AtomicInteger();
+
+    /**
+     * The version of the table the player's last token was placed on (the version its set claim is built against).
+     */
+    private long claimVersion;
+
+    /**
+     * The strategy that chooses the key presses of a computer player (the configured strategy if not set).
+     */
+    private ComputerStrategy strategy;
 
     /**
      * The size of the feature.
@@ -86,7 +103,7 @@ public class Player implements Runnable {
     /**
      * Represents the current state of a player in the game.
      */
-    public PlayerState status;
+    public volatile PlayerState status;
 
     /**
      * The class constructor.
@@ -106,7 +123,7 @@ public class Player implements Runnable {
         this.dealer = dealer;
         this.status = PlayerState.Playing;
         this.featureSize = env.config.featureSize;
-        this.playerActions = new LinkedBlockingDeque<>(featureSize);
+        this.playerActions = new KeyQueue(featureSize);
     }
 
     /**
@@ -119,11 +136,6 @@ public class Player implements Runnable {
         env.logger.info("thread " + Thread.currentThread().getName() + " starting.");
 
         if (!human) createArtificialIntelligence();
-        
-        // Notify the dealer that the player has been fully initialized
-        synchronized (dealer.getInitializetionLock()) {
-            dealer.getInitializetionLock().notifyAll();
-        }
 
         // Check the player's status and perform corresponding action
         while (!terminate) {
@@ -138,7 +150,7 @@ public class Player implements Runnable {
                     penalty();
                     break;
                 case PointFreeze:
-                    point();
+                    pointFreeze();
                     break;
             }
         }
@@ -148,6 +160,8 @@ public class Player implements Runnable {
                 aiThread.join();
             } catch (InterruptedException ignored) {}
         terminateAi();
+        if (playerActions.dropped() > 0 && env.logger.isLoggable(Level.INFO))
+            env.logger.info("player " + id + " dropped " + playerActions.dropped() + " key presses.");
         env.logger.info("thread " + Thread.currentThread().getName() + " terminated.");
     }
 
@@ -157,21 +171,23 @@ public class Player implements Runnable {
      * @param slot the slot number to process the action for
      */
     private void processAction(int slot) {
-        if ( terminate || table.slotToCard[slot] == null) {
+        TableSnapshot view = table.snapshot();
+        if ( terminate || view.card(slot) == TableSnapshot.EMPTY) {
             return;
         }
 
         //Attempt to remove the token from the slot
         if (!table.removeToken(id, slot)) {
             // If the removal failed add token and check if the feature is completed
-            boolean finished = table.tokenPlacement[id].size() == featureSize;
+            boolean finished = table.countTokens(id) == featureSize;
 
             if (!finished) {
                 table.placeToken(id, slot);
 
-                finished = table.tokenPlacement[id].size() == featureSize;
+                finished = table.countTokens(id) == featureSize;
 
                 if (finished) {
+                    claimVersion = view.version;
                     status = PlayerState.WaitingForCheck;
                 }
             }
@@ -181,21 +197,22 @@ public class Player implements Runnable {
     /**
      * Creates an additional thread for an AI (computer) player. The main loop of
      * this thread repeatedly generates
-     * key presses. If the queue of key presses is full, the thread waits until it
+     * key presses chosen by the player's strategy. If the queue of key presses is full, the thread waits until it
      * is not full.
      */
     private void createArtificialIntelligence() {
-        // note: this is a very, very smart AI (!)
-        
-        aiThread = new Thread(() -> {
+        if (strategy == null) strategy = ComputerStrategy.create(env, table, this);
+
+        aiThread = Threads.newThread(env.config.virtualThreads, "computer-" + id, () -> {
             env.logger.info("thread " + Thread.currentThread().getName() + " starting.");
-            while (!terminate) {
-                // Simulate pressing a random key
-                int press = (int) (Math.random() * env.config.tableSize);
-                keyPressed(press);
-            }
+            try {
+                while (!terminate) {
+                    int press = strategy.nextKey();
+                    if (press >= 0) keyPressed(press);
+                }
+            } catch (InterruptedException ignored) {}
             env.logger.info("thread " + Thread.currentThread().getName() + " terminated.");
-        }, "computer-" + id);
+        });
         aiThread.start();
     }
 
@@ -206,11 +223,12 @@ public class Player implements Runnable {
         terminate = true;
 
         try {
-            playerThread.interrupt();
-            playerThread.join();
+            // the thread may not have been created yet if the game is stopped while starting
+            if (playerThread != null) {
+                playerThread.interrupt();
+                playerThread.join();
+            }
         } catch (InterruptedException exception) {}
-
-        playerActions.offer(-1);  // Indicate termination of player actions.
     }
 
     /**
@@ -227,30 +245,78 @@ public class Player implements Runnable {
     }
 
     /**
-     * This method is called when a key is pressed.
+     * This method is called when a key is pressed (by a single thread: the input thread for a human player, the
+     * computer thread for a computer player, whose keys are not bound to the keyboard). It never blocks: if the player has not processed its previous key
+     * presses yet, the key press is dropped.
      *
      * @param slot - the slot corresponding to the key pressed.
      */
     public void keyPressed(int slot) {
-        try {
-            if (status == PlayerState.Playing && !dealer.isTerminationInProgress()) {
-                playerActions.put(slot);
-            }
-        } catch (InterruptedException exception) {}
+        if (status == PlayerState.Playing && !dealer.isTerminationInProgress()) {
+            unprocessedActions.incrementAndGet();
+            if (!playerActions.offer(slot))
+                unprocessedActions.decrementAndGet();
+        }
+    }
+
+    /**
+     * Returns the number of key presses dropped because the player did not process the previous ones yet.
+     *
+     * @return the number of dropped key presses
+     */
+    public long droppedKeys() {
+        return playerActions.dropped();
+    }
+
+    /**
+     * Returns the number of key presses waiting to be processed.
+     *
+     * @return the number of queued key presses
+     */
+    public int queuedKeys() {
+        return playerActions.size();
+    }
+
+    /**
+     * Sets the strategy of a computer player (before the game starts).
+     *
+     * @param strategy - the strategy that chooses the player's key presses.
+     */
+    public void setComputerStrategy(ComputerStrategy strategy) {
+        this.strategy = strategy;
+    }
+
+    /**
+     * Checks if the player is waiting for a key press, i.e. it is not frozen or waiting for a check and all the key
+     * presses so far were processed.
+     *
+     * @return true iff the player is waiting for input
+     */
+    boolean isWaitingForInput() {
+        return status == PlayerState.Playing && unprocessedActions.get() == 0;
     }
 
     /**
      * Award a point to a player and perform other related actions.
+     * The dealer calls it (on the player's thread) as soon as the set is found legal, so the set that ends the game is
+     * scored too; the player is frozen afterwards, by pointFreeze.
      *
      * @post - the player's score is increased by 1.
      * @post - the player's score is updated in the ui.
      */
     public void point() {
+        int ignored = table.countCards(); // this part is just for demonstration in the unit tests
+        env.ui.setScore(id, ++score);
+        status = PlayerState.PointFreeze;
+    }
+
+    /**
+     * Freezes the player after a point, then lets it play again.
+     */
+    private void pointFreeze() {
         if (!dealer.isTerminationInProgress() && !terminate) {
-            int ignored = table.countCards(); // this part is just for demonstration in the unit tests
-            env.ui.setScore(id, ++score);
             freezePlayer(env.config.pointFreezeMillis);
-            playerActions.clear();
+            unprocessedActions.addAndGet(-playerActions.clear());
             status = PlayerState.Playing;
         }
     }
@@ -301,11 +367,11 @@ public class Player implements Runnable {
     }
 
     /**
-     * Creates and starts a new thread for the player.
-     * The thread's name is set to "playerThread" followed by the player's ID.
+     * Creates a new thread for the player (a virtual thread if configured).
+     * The thread's name is set to "player-" followed by the player's ID.
      */
     protected void setAPlayerThreads() {
-        playerThread = new Thread(this, " player-" + id);
+        playerThread = Threads.newThread(env.config.virtualThreads, "player-" + id, this);
     }
 
 
@@ -323,14 +389,15 @@ public class Player implements Runnable {
      * @return an array containing the IDs of cards with the player's tokens.
      */
     public int[] getTokensArray() {
-        int setSize = table.tokenPlacement[id].size();
-        int[] set = new int[setSize];
+        int[] slots = table.getTokens(id);
+        int[] set = new int[slots.length];
+        TableSnapshot view = table.snapshot();
 
         // Add cards to the array based on the player's token slots
-        for (int i = 0; i < setSize; i++) {
-            int slot = table.tokenPlacement[id].get(i);
-            if (table.slotToCard[slot] != null) {
-                set[i] = table.slotToCard[slot];
+        for (int i = 0; i < slots.length; i++) {
+            int card = view.card(slots[i]);
+            if (card != TableSnapshot.EMPTY) {
+                set[i] = card;
             }
         }
         return (set);
@@ -340,11 +407,9 @@ public class Player implements Runnable {
      * Sends the player's set to be checked for corerect set.
      */
     public void sendSetToCheck() {
-        try {
-            table.checkSetSemaphore.acquire();
-            dealer.checkSet(id);
-            table.checkSetSemaphore.release();
-        } catch (InterruptedException exception) {table.checkSetSemaphore.release();}
+        long claimTime = System.nanoTime();
+        dealer.checkSet(id, claimVersion);
+        dealer.getCheckLatency().record(System.nanoTime() - claimTime);
     }
 
     /**
@@ -354,6 +419,7 @@ public class Player implements Runnable {
         if (!dealer.isTerminationInProgress()) {
             try {
                 processAction(this.playerActions.take());
+                unprocessedActions.decrementAndGet();
             } catch (InterruptedException exception) {}
         }
     }
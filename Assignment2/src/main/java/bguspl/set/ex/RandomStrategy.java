@@ -0,0 +1,26 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+
+import java.util.Random;
+
+/**
+ * Presses random keys as fast as the player accepts them.
+ */
+class RandomStrategy implements ComputerStrategy {
+
+    private final Env env;
+    private final Random random;
+
+    RandomStrategy(Env env, Player player) {
+        this.env = env;
+        this.random = new Random(env.config.randomSeed + player.id + 1);
+    }
+
+    @Override
+    public int nextKey() {
+        // virtual threads are not preempted, so let the other players on the carrier thread run
+        Thread.yield();
+        return random.nextInt(env.config.tableSize);
+    }
+}
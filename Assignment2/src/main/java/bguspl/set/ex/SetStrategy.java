@@ -0,0 +1,102 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+
+/**
+ * Looks for a set on the table and presses its slots, like a (fallible) human player would: every set takes a
+ * reaction time to find (between half and one and a half times the configured reaction time), and some claims are
+ * wrong (one card of the set is replaced with another card on the table).
+ */
+class SetStrategy implements ComputerStrategy {
+
+    /**
+     * The number of milliseconds to wait before looking again when the player is busy or there is no set on the table.
+     */
+    private static final long IDLE_MILLIS = 5;
+
+    private final Env env;
+    private final Table table;
+    private final Player player;
+    private final Random random;
+
+    /**
+     * The remaining key presses of the current claim.
+     */
+    private final Queue<Integer> presses = new ArrayDeque<>();
+
+    SetStrategy(Env env, Table table, Player player) {
+        this.env = env;
+        this.table = table;
+        this.player = player;
+        this.random = new Random(env.config.randomSeed + player.id + 1);
+    }
+
+    @Override
+    public int nextKey() throws InterruptedException {
+        if (!presses.isEmpty()) return presses.remove();
+
+        // wait for the previous claim to be processed (and for the freeze to end)
+        if (!player.isWaitingForInput()) {
+            Thread.sleep(IDLE_MILLIS);
+            return -1;
+        }
+
+        int[] claim = findClaim();
+        if (claim == null) {
+            Thread.sleep(IDLE_MILLIS);
+            return -1;
+        }
+
+        long reaction = env.config.computerReactionMillis;
+        if (reaction > 0) Thread.sleep(reaction / 2 + (long) (random.nextDouble() * reaction));
+
+        // first take back the tokens that are not part of the claim, then place the missing ones
+        boolean[] claimed = new boolean[env.config.tableSize];
+        for (int slot : claim)
+            claimed[slot] = true;
+        for (int slot = 0; slot < claimed.length; ++slot)
+            if (!claimed[slot] && table.hasToken(player.id, slot)) presses.add(slot);
+        for (int slot : claim)
+            if (!table.hasToken(player.id, slot)) presses.add(slot);
+        return presses.isEmpty() ? -1 : presses.remove();
+    }
+
+    /**
+     * Finds the slots of a set on the table, with one wrong slot at the configured error rate.
+     *
+     * @return - the slots, or null if there is no set on the table.
+     */
+    private int[] findClaim() {
+        TableSnapshot view = table.snapshot();
+        List<Integer> cards = view.cards();
+
+        // pick one of the sets at random, so the players do not all go for the same one
+        List<int[]> sets = table.sets(view);
+        if (sets.isEmpty()) return null;
+
+        int[] set = sets.get(random.nextInt(sets.size()));
+        if (random.nextDouble() < env.config.computerErrorRate && cards.size() > set.length) {
+            int replaced = random.nextInt(set.length);
+            int other;
+            do other = cards.get(random.nextInt(cards.size()));
+            while (contains(set, other));
+            set[replaced] = other;
+        }
+
+        int[] slots = new int[set.length];
+        for (int i = 0; i < set.length; ++i)
+            slots[i] = view.slotOf(set[i]);
+        return slots;
+    }
+
+    private static boolean contains(int[] array, int value) {
+        for (int element : array)
+            if (element == value) return true;
+        return false;
+    }
+}
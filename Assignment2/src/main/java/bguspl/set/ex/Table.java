@@ -2,17 +2,15 @@ package bguspl.set.ex;
 
 import bguspl.set.Env;
 
-import java.util.Arrays;
 import java.util.List;
-import java.util.Objects;
-import java.util.Vector;
-import java.util.concurrent.Semaphore;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * This class contains the data that is visible to the player.
  *
- * @inv slotToCard[x] == y iff cardToSlot[y] == x
+ * @inv slotToCard[x] == y iff cardToSlot[y] == x (if cardToSlot is kept)
  */
 /**
  * Represents the table in the Set game.
@@ -31,38 +29,68 @@ public class Table {
     protected final Integer[] slotToCard; // card per slot (if any)
 
     /**
-     * Mapping between a card and the slot it is in (null if none).
+     * Mapping between a card and the slot it is in (null if none). It has an entry for every card of the deck, so it
+     * is only kept when given to the testing constructor: the slot of a card is found with snapshot().slotOf(card).
      */
     protected final Integer[] cardToSlot; // slot per card (if any)
 
     /**
-     * An array representing the placement of tokens on the table for each player, indexed by the player ID.
-     * Each vector within the array holds the slots on which the player has placed tokens.
+     * The latest snapshot of the cards on the table (replaced, never changed, on every card placed or removed).
      */
-    public volatile Vector<Integer>[] tokenPlacement;
+    private final AtomicReference<TableSnapshot> snapshot;
 
     /**
-     * Semaphore used for synchronization during the checking of sets in the game
+     * The placement of tokens on the table: a bitmask over the slots for each player (tokenWords longs per player,
+     * bit slot % 64 of word slot / 64 is set iff the player has a token on the slot).
      */
-    public Semaphore checkSetSemaphore;
+    private final AtomicLongArray tokens;
+
+    /**
+     * The number of longs in each player's bitmask.
+     */
+    private final int tokenWords;
+
+    /**
+     * Fair locks giving a set claim (or the dealer) exclusive ownership of the card in a slot while it is checked or
+     * moved. Claims on disjoint slots are checked in parallel, and claims sharing a slot are served in arrival order.
+     */
+    private final ReentrantLock[] slotLocks;
+
+    /**
+     * The legal sets on the table, kept up to date for the hints.
+     */
+    private final HintService hints;
+
+    /**
+     * Records the card and token events for replay (null if the game is not recorded).
+     */
+    private GameRecorder recorder;
 
     /**
      * Constructor for testing.
      *
      * @param env        the game environment object.
      * @param slotToCard mapping between a slot and the card placed in it (null if none).
-     * @param cardToSlot mapping between a card and the slot it is in (null if none).
+     * @param cardToSlot mapping between a card and the slot it is in (null if none), or null to not keep it.
      */
     public Table(Env env, Integer[] slotToCard, Integer[] cardToSlot) {
         this.env = env;
         this.slotToCard = slotToCard;
         this.cardToSlot = cardToSlot;
 
-        this.tokenPlacement = new Vector[env.config.players];
-        for (int i = 0; i < tokenPlacement.length; i++)
-            tokenPlacement[i] = new Vector<>();
+        TableSnapshot initial = new TableSnapshot(slotToCard.length);
+        for (int slot = 0; slot < slotToCard.length; slot++)
+            if (slotToCard[slot] != null) initial = initial.with(slot, slotToCard[slot]);
+        this.snapshot = new AtomicReference<>(initial);
+
+        this.tokenWords = (slotToCard.length + Long.SIZE - 1) / Long.SIZE;
+        this.tokens = new AtomicLongArray(env.config.players * tokenWords);
 
-        this.checkSetSemaphore = new Semaphore(1, true);
+        this.slotLocks = new ReentrantLock[slotToCard.length];
+        for (int i = 0; i < slotLocks.length; i++)
+            slotLocks[i] = new ReentrantLock(true);
+
+        this.hints = new HintService(env, this);
     }
 
     /**
@@ -71,23 +99,45 @@ public class Table {
      * @param env - the game environment objects.
      */
     public Table(Env env) {
-        this(env, new Integer[env.config.tableSize], new Integer[env.config.deckSize]);
+        this(env, new Integer[env.config.tableSize], null);
     }
 
     /**
      * This method prints all possible legal sets of cards that are currently on the
-     * table.
+     * table (at most once a second, and only if the table changed since the last time).
+     *
+     * @return - the number of milliseconds until hints held back by the once a second limit are due (0 if none).
+     */
+    public long hints() {
+        return hints.print();
+    }
+
+    /**
+     * Returns the legal sets among the cards of a snapshot of the table, from the sets kept for the hints.
+     *
+     * @param view - the snapshot of the table.
+     * @return - the sets of cards.
      */
-    public void hints() {
-        List<Integer> deck = Arrays.stream(slotToCard).filter(Objects::nonNull).collect(Collectors.toList());
-        env.util.findSets(deck, Integer.MAX_VALUE).forEach(set -> {
-            StringBuilder sb = new StringBuilder().append("Hint: Set found: ");
-            List<Integer> slots = Arrays.stream(set).mapToObj(card -> cardToSlot[card]).sorted()
-                    .collect(Collectors.toList());
-            int[][] features = env.util.cardsToFeatures(set);
-            System.out.println(
-                    sb.append("slots: ").append(slots).append(" features: ").append(Arrays.deepToString(features)));
-        });
+    List<int[]> sets(TableSnapshot view) {
+        return hints.sets(view);
+    }
+
+    /**
+     * Records the card and token events of the table from now on (set before the game starts).
+     *
+     * @param recorder - the game recorder (null to stop recording).
+     */
+    void setRecorder(GameRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    /**
+     * Returns the latest snapshot of the cards on the table (a consistent view, without locking).
+     *
+     * @return - the snapshot.
+     */
+    public TableSnapshot snapshot() {
+        return snapshot.get();
     }
 
     /**
@@ -112,12 +162,14 @@ public class Table {
      * @post - the card placed is on the table, in the assigned slot.
      */
     public void placeCard(int card, int slot) {
-        try {
-            Thread.sleep(env.config.tableDelayMillis);
-        } catch (InterruptedException exception) {}
+        // drop any token left on the empty slot before the card shows, so no token predates the card
+        for (int player = 0; player < env.config.players; player++)
+            updateToken(player, slot, false);
 
-        cardToSlot[card] = slot;
+        if (cardToSlot != null) cardToSlot[card] = slot;
         slotToCard[slot] = card;
+        snapshot.updateAndGet(current -> current.with(slot, card));
+        if (recorder != null) recorder.deal(slot, card);
 
         env.ui.placeCard(card, slot);
     }
@@ -128,28 +180,22 @@ public class Table {
      * @param slot - the slot from which to remove the card.
      */
     public void removeCard(int slot) {
-        try {
-            Thread.sleep(env.config.tableDelayMillis);
-        } catch (InterruptedException ignored) {}
-
-        // update the UI
+        // update the UI (the user interface paces the animation, the table is never delayed)
         env.ui.removeTokens(slot);
         env.ui.removeCard(slot);
 
         // Remove the card from the given slot
         Integer card = slotToCard[slot];
-        if (slotToCard != null) {
-            cardToSlot[card] = null;
+        if (card != null) {
+            if (cardToSlot != null) cardToSlot[card] = null;
             slotToCard[slot] = null;
+            snapshot.updateAndGet(current -> current.with(slot, TableSnapshot.EMPTY));
+            if (recorder != null) recorder.remove(slot);
         }
 
-        // Remove tokens from the given slot
-        for (Vector<Integer> tokens : tokenPlacement) {
-            int indexToRemove = tokens.indexOf(slot);
-            if (indexToRemove != -1) {
-                tokens.remove(indexToRemove);
-            }
-        }
+        // Remove the tokens of all players from the given slot
+        for (int player = 0; player < env.config.players; player++)
+            updateToken(player, slot, false);
     }
 
     /**
@@ -158,11 +204,19 @@ public class Table {
      * @param player - the player the token belongs to.
      * @param slot   - the slot on which to place the token.
      */
-    public synchronized void placeToken(int player, int slot) {
-        if ((slot > -1 && slot < env.config.tableSize) && slotToCard[slot] != null) {
-            env.ui.placeToken(player, slot);
-            tokenPlacement[player].add(slot);
+    public void placeToken(int player, int slot) {
+        if (slot < 0 || slot >= env.config.tableSize) return;
+        TableSnapshot view = snapshot.get();
+        if (slotToCard[slot] == null || !updateToken(player, slot, true)) return;
+
+        // removeCard empties the slot and publishes a new snapshot before it clears the slot's tokens, so if the card
+        // was removed (or replaced) before the token was set, the slot changed since the view: take the token back
+        if (snapshot.get().changedSince(slot, view.version)) {
+            updateToken(player, slot, false);
+            return;
         }
+        if (recorder != null) recorder.token(player, slot, true);
+        env.ui.placeToken(player, slot);
     }
 
     /**
@@ -173,9 +227,8 @@ public class Table {
      * @return - true iff a token was successfully removed.
      */
     public boolean removeToken(int player, int slot) {
-        int indexToRemove = tokenPlacement[player].indexOf(slot);
-        if (slotToCard[slot] != null && indexToRemove != -1) {
-            tokenPlacement[player].remove(indexToRemove);
+        if (slotToCard[slot] != null && updateToken(player, slot, false)) {
+            if (recorder != null) recorder.token(player, slot, false);
             env.ui.removeToken(player, slot);
             return true;
         }
@@ -186,12 +239,118 @@ public class Table {
      * Removes all tokens from the table.
      */
     public void clearAllTokens() {
-        for (int i = 0; i < tokenPlacement.length; i++) {
-            while (!tokenPlacement[i].isEmpty()) {
-                int slot = tokenPlacement[i].remove(0);
-                env.ui.removeToken(i, slot);
+        for (int player = 0; player < env.config.players; player++) {
+            for (int word = 0; word < tokenWords; word++) {
+                for (long bits = tokens.getAndSet(player * tokenWords + word, 0); bits != 0; bits &= bits - 1) {
+                    int slot = word * Long.SIZE + Long.numberOfTrailingZeros(bits);
+                    if (recorder != null) recorder.token(player, slot, false);
+                    env.ui.removeToken(player, slot);
+                }
             }
         }
     }
 
+    /**
+     * Checks if a player has a token on a grid slot.
+     *
+     * @param player - the player the token belongs to.
+     * @param slot   - the slot to check.
+     * @return - true iff the player has a token on the slot.
+     */
+    public boolean hasToken(int player, int slot) {
+        return (tokens.get(player * tokenWords + slot / Long.SIZE) & (1L << slot)) != 0;
+    }
+
+    /**
+     * Counts the tokens a player has on the table.
+     *
+     * @param player - the player the tokens belong to.
+     * @return - the number of slots with the player's tokens.
+     */
+    public int countTokens(int player) {
+        int count = 0;
+        for (int word = 0; word < tokenWords; word++)
+            count += Long.bitCount(tokens.get(player * tokenWords + word));
+        return count;
+    }
+
+    /**
+     * Returns the slots a player has placed tokens on.
+     *
+     * @param player - the player the tokens belong to.
+     * @return - the slots with the player's tokens, in increasing order.
+     */
+    public int[] getTokens(int player) {
+        long[] bits = new long[tokenWords];
+        int count = 0;
+        for (int word = 0; word < tokenWords; word++) {
+            bits[word] = tokens.get(player * tokenWords + word);
+            count += Long.bitCount(bits[word]);
+        }
+
+        int[] slots = new int[count];
+        int i = 0;
+        for (int word = 0; word < tokenWords; word++)
+            for (long rest = bits[word]; rest != 0; rest &= rest - 1)
+                slots[i++] = word * Long.SIZE + Long.numberOfTrailingZeros(rest);
+        return slots;
+    }
+
+    /**
+     * Takes exclusive ownership of the card in a slot (waiting for earlier owners in arrival order).
+     *
+     * @param slot - the slot to lock.
+     */
+    public void lockSlot(int slot) {
+        slotLocks[slot].lock();
+    }
+
+    /**
+     * Releases the ownership of the card in a slot.
+     *
+     * @param slot - the slot to unlock.
+     */
+    public void unlockSlot(int slot) {
+        slotLocks[slot].unlock();
+    }
+
+    /**
+     * Takes exclusive ownership of the cards in several slots, in increasing slot order so that claims on overlapping
+     * slots cannot deadlock.
+     *
+     * @param slots - the slots to lock, in increasing order.
+     */
+    public void lockSlots(int[] slots) {
+        for (int slot : slots)
+            slotLocks[slot].lock();
+    }
+
+    /**
+     * Releases the ownership of the cards in several slots.
+     *
+     * @param slots - the slots to unlock.
+     */
+    public void unlockSlots(int[] slots) {
+        for (int i = slots.length - 1; i >= 0; i--)
+            slotLocks[slots[i]].unlock();
+    }
+
+    /**
+     * Atomically places or removes a token of a player.
+     *
+     * @param player - the player the token belongs to.
+     * @param slot   - the slot of the token.
+     * @param placed - true to place the token, false to remove it.
+     * @return - true iff the token was changed (i.e. it was not already placed/removed).
+     */
+    private boolean updateToken(int player, int slot, boolean placed) {
+        int index = player * tokenWords + slot / Long.SIZE;
+        long mask = 1L << slot;
+        while (true) {
+            long bits = tokens.get(index);
+            if (((bits & mask) != 0) == placed) return false;
+            if (tokens.compareAndSet(index, bits, bits ^ mask)) return true;
+        }
+    }
+
 }
@@ -0,0 +1,126 @@
+package bguspl.set.ex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An immutable view of the cards on the table at some version.
+ * Every card placed or removed publishes a new snapshot with the next version (copy on write), so readers such as
+ * the computer players and the hints get a consistent view of the whole table without locking, and a set claim can
+ * tell if any of its slots changed since the version it was built against.
+ */
+public final class TableSnapshot {
+
+    /**
+     * The card of an empty slot.
+     */
+    public static final int EMPTY = -1;
+
+    /**
+     * The version of the table (the number of card changes so far).
+     */
+    public final long version;
+
+    /**
+     * The card in each slot (EMPTY if none).
+     */
+    private final int[] cards;
+
+    /**
+     * The version at which each slot last changed.
+     */
+    private final long[] changed;
+
+    /**
+     * Creates the snapshot of an empty table.
+     *
+     * @param slots - the number of slots on the table.
+     */
+    TableSnapshot(int slots) {
+        version = 0;
+        cards = new int[slots];
+        changed = new long[slots];
+        Arrays.fill(cards, EMPTY);
+    }
+
+    private TableSnapshot(TableSnapshot previous, int slot, int card) {
+        version = previous.version + 1;
+        cards = previous.cards.clone();
+        changed = previous.changed.clone();
+        cards[slot] = card;
+        changed[slot] = version;
+    }
+
+    /**
+     * Returns the next snapshot, with one slot changed.
+     *
+     * @param slot - the slot.
+     * @param card - the card placed in the slot (EMPTY if the card was removed).
+     * @return - the new snapshot.
+     */
+    TableSnapshot with(int slot, int card) {
+        return new TableSnapshot(this, slot, card);
+    }
+
+    /**
+     * @return - the number of slots on the table.
+     */
+    public int slots() {
+        return cards.length;
+    }
+
+    /**
+     * @param slot - the slot.
+     * @return - the card in the slot (EMPTY if none).
+     */
+    public int card(int slot) {
+        return cards[slot];
+    }
+
+    /**
+     * Returns the slot of a card.
+     *
+     * @param card - the card.
+     * @return - the slot of the card (-1 if it is not on the table).
+     */
+    public int slotOf(int card) {
+        for (int slot = 0; slot < cards.length; ++slot)
+            if (cards[slot] == card) return slot;
+        return -1;
+    }
+
+    /**
+     * @return - the cards on the table, in slot order.
+     */
+    public List<Integer> cards() {
+        List<Integer> list = new ArrayList<>(cards.length);
+        for (int card : cards)
+            if (card != EMPTY) list.add(card);
+        return list;
+    }
+
+    /**
+     * Checks if any of the given slots changed after the given version.
+     *
+     * @param slots   - the slots.
+     * @param version - the version the caller saw.
+     * @return - true iff a card was placed or removed in one of the slots after the version.
+     */
+    public boolean changedSince(int[] slots, long version) {
+        for (int slot : slots)
+            if (changed[slot] > version) return true;
+        return false;
+    }
+
+    /**
+     * Checks if a slot changed after the given version.
+     *
+     * @param slot    - the slot.
+     * @param version - the version the caller saw.
+     * @return - true iff a card was placed or removed in the slot after the version.
+     */
+    public boolean changedSince(int slot, long version) {
+        return changed[slot] > version;
+    }
+}
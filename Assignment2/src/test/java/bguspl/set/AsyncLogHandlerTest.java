@@ -0,0 +1,94 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.concurrent.CountDownLatch;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AsyncLogHandlerTest {
+
+    /**
+     * A writer that blocks the first write until released, so the records pile up in the buffer.
+     */
+    private static class BlockedWriter extends StringWriter {
+        private final CountDownLatch writing = new CountDownLatch(1);
+        private final CountDownLatch released = new CountDownLatch(1);
+
+        @Override
+        public StringWriter append(CharSequence text) {
+            writing.countDown();
+            try {
+                released.await();
+            } catch (InterruptedException ignored) {}
+            return super.append(text);
+        }
+    }
+
+    private static String lines(Writer out) {
+        return out.toString().replace(System.lineSeparator(), "|");
+    }
+
+    private static void fillWhileBlocked(AsyncLogHandler handler, BlockedWriter out) throws InterruptedException {
+        handler.publish(new LogRecord(Level.INFO, "0"));
+        out.writing.await(); // the flusher holds record 0
+        for (int i = 1; i <= 4; ++i)
+            handler.publish(new LogRecord(Level.INFO, Integer.toString(i)));
+        out.released.countDown();
+        handler.close();
+    }
+
+    @Test
+    void publish_BlockWritesAllRecordsInOrder() {
+        StringWriter out = new StringWriter();
+        AsyncLogHandler handler = new AsyncLogHandler(out, 16);
+        handler.setFormatter(new LogFormatter("%3$s%n"));
+        handler.setDropPolicy(AsyncLogHandler.DropPolicy.Block);
+        for (int i = 0; i < 1000; ++i)
+            handler.publish(new LogRecord(Level.INFO, Integer.toString(i)));
+        handler.flush();
+
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 1000; ++i)
+            expected.append(i).append('|');
+        assertEquals(expected.toString(), lines(out));
+        handler.close();
+    }
+
+    @Test
+    void publish_DropNewest() throws InterruptedException {
+        BlockedWriter out = new BlockedWriter();
+        AsyncLogHandler handler = new AsyncLogHandler(out, 2);
+        handler.setFormatter(new LogFormatter("%3$s%n"));
+        fillWhileBlocked(handler, out);
+        assertEquals("0|1|2|2 log records were dropped|", lines(out));
+    }
+
+    @Test
+    void publish_DropOldest() throws InterruptedException {
+        BlockedWriter out = new BlockedWriter();
+        AsyncLogHandler handler = new AsyncLogHandler(out, 2);
+        handler.setFormatter(new LogFormatter("%3$s%n"));
+        handler.setDropPolicy(AsyncLogHandler.DropPolicy.DropOldest);
+        fillWhileBlocked(handler, out);
+        assertEquals("0|3|4|2 log records were dropped|", lines(out));
+        assertEquals(2, handler.dropped());
+    }
+
+    @Test
+    void publish_BelowLevel() {
+        StringWriter out = new StringWriter();
+        AsyncLogHandler handler = new AsyncLogHandler(out, 16);
+        handler.setLevel(Level.WARNING);
+        handler.publish(new LogRecord(Level.INFO, "hidden"));
+        handler.publish(new LogRecord(Level.SEVERE, "shown"));
+        handler.close();
+        assertTrue(out.toString().contains("shown"));
+        assertTrue(!out.toString().contains("hidden"));
+    }
+}
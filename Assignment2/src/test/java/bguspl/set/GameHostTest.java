@@ -0,0 +1,80 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+import java.util.logging.Level;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GameHostTest {
+
+    /**
+     * A small, fast game of computer players only.
+     */
+    private static Config createConfig(long seed, double turnTimeoutSeconds) {
+        return createConfig(seed, turnTimeoutSeconds, 0);
+    }
+
+    /**
+     * A small game of two players, some of them human (headless human players never claim a set).
+     */
+    private static Config createConfig(long seed, double turnTimeoutSeconds, int humanPlayers) {
+        Properties properties = new Properties();
+        properties.put("FeatureSize", "3");
+        properties.put("FeatureCount", "2");
+        properties.put("HumanPlayers", Integer.toString(humanPlayers));
+        properties.put("ComputerPlayers", Integer.toString(2 - humanPlayers));
+        properties.put("Rows", "2");
+        properties.put("Columns", "2");
+        properties.put("TurnTimeoutSeconds", Double.toString(turnTimeoutSeconds));
+        properties.put("TurnTimeoutWarningSeconds", "0");
+        properties.put("PointFreezeSeconds", "0");
+        properties.put("PenaltyFreezeSeconds", "0");
+        properties.put("TableDelaySeconds", "0");
+        properties.put("EndGamePauseSeconds", "0");
+        properties.put("LogLevel", Level.OFF.getName());
+        properties.put("RandomSeed", Long.toString(seed));
+        return new Config(new UtilImplTest.MockLogger(), properties);
+    }
+
+    @Test
+    void awaitTable_GamesFinish() throws InterruptedException {
+        try (GameHost host = new GameHost(new UtilImplTest.MockLogger(), 2)) {
+            int first = host.startTable(createConfig(1, 0.2));
+            int second = host.startTable(createConfig(2, 0.2));
+            int third = host.startTable(createConfig(3, 0.2)); // waits for a worker
+
+            for (int id : new int[]{first, second, third}) {
+                GameHost.TableMetrics metrics = host.awaitTable(id);
+                assertEquals(GameHost.TableState.Finished, metrics.state);
+                assertEquals(2, metrics.players);
+                assertTrue(metrics.sets <= metrics.checkLatency.count()); // every collected set was checked
+            }
+            assertEquals(3, host.metrics().size());
+        }
+    }
+
+    @Test
+    void stopTable_OnlyStopsThatTable() throws InterruptedException {
+        try (GameHost host = new GameHost(new UtilImplTest.MockLogger(), 1)) {
+            int running = host.startTable(createConfig(1, 60, 2)); // nobody claims a set, so it runs until stopped
+            int waiting = host.startTable(createConfig(2, 0.2));
+            int other = host.startTable(createConfig(3, 0.2));
+
+            host.stopTable(waiting); // never gets a worker
+            assertEquals(GameHost.TableState.Stopped, host.awaitTable(waiting).state);
+
+            while (host.metrics(running).state != GameHost.TableState.Running)
+                Thread.sleep(10);
+            host.stopTable(running);
+            assertEquals(GameHost.TableState.Stopped, host.awaitTable(running).state);
+
+            assertEquals(GameHost.TableState.Finished, host.awaitTable(other).state);
+
+            host.removeTable(waiting);
+            assertTrue(host.metrics(waiting) == null);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package bguspl.set;
+
+import bguspl.set.ex.Dealer;
+import bguspl.set.ex.Player;
+import org.junit.jupiter.api.Test;
+
+import java.awt.event.KeyEvent;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class InputManagerTest {
+
+    private static KeyEvent keyEvent(int keyCode) {
+        KeyEvent event = mock(KeyEvent.class);
+        when(event.getKeyCode()).thenReturn(keyCode);
+        return event;
+    }
+
+    @Test
+    void keyPressed_OnlyReachesHumanPlayers() throws InterruptedException {
+        Properties properties = new Properties();
+        properties.put("HumanPlayers", "1");
+        properties.put("ComputerPlayers", "1"); // player 1 still has the default keys
+        UtilImplTest.MockLogger logger = new UtilImplTest.MockLogger();
+        Config config = new Config(logger, properties);
+        Env env = new Env(logger, config, mock(UserInterface.class), mock(Util.class));
+        Dealer dealer = mock(Dealer.class);
+        Player human = new Player(env, dealer, null, 0, true);
+        Player computer = new Player(env, dealer, null, 1, false);
+        InputManager input = new InputManager(logger, config, new Player[]{human, computer});
+
+        KeyEvent[] events = new KeyEvent[config.playerKeys(0).length + config.playerKeys(1).length];
+        for (int i = 0; i < config.playerKeys(0).length; i++)
+            events[i] = keyEvent(config.playerKeys(0)[i]);
+        for (int i = 0; i < config.playerKeys(1).length; i++)
+            events[config.playerKeys(0).length + i] = keyEvent(config.playerKeys(1)[i]);
+
+        // the keyboard and the computer thread press keys at the same time (nobody takes them from the queues)
+        int rounds = 10000;
+        Thread keyboard = new Thread(() -> {
+            for (int round = 0; round < rounds; ++round)
+                for (KeyEvent event : events)
+                    input.keyPressed(event);
+        });
+        Thread computerThread = new Thread(() -> {
+            for (int round = 0; round < rounds; ++round)
+                computer.keyPressed(round % config.tableSize);
+        });
+        keyboard.start();
+        computerThread.start();
+        keyboard.join();
+        computerThread.join();
+
+        // every key press of the computer player came from its own thread, and none was lost
+        assertEquals(rounds, computer.queuedKeys() + computer.droppedKeys());
+        assertEquals(config.featureSize, computer.queuedKeys());
+        assertEquals(config.featureSize, human.queuedKeys());
+        assertTrue(human.droppedKeys() > 0);
+    }
+}
@@ -0,0 +1,36 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LogFormatterTest {
+
+    private static LogRecord record(Level level, String message, long millis) {
+        LogRecord record = new LogRecord(level, message);
+        record.setMillis(millis);
+        return record;
+    }
+
+    @Test
+    void format_SameAsStringFormat() {
+        LogFormatter formatter = new LogFormatter(LogFormatter.DEFAULT_FORMAT);
+        long millis = 1_700_000_000_000L;
+        for (Level level : new Level[]{Level.SEVERE, Level.INFO, Level.FINEST}) {
+            for (long offset : new long[]{0, 7, 59_999, 3_600_000 * 13 + 61_001, 86_399_999}) {
+                LogRecord record = record(level, "message " + offset, millis + offset);
+                assertEquals(String.format(LogFormatter.DEFAULT_FORMAT, record.getMillis(), level.getLocalizedName(),
+                        record.getMessage()), formatter.format(record));
+            }
+        }
+    }
+
+    @Test
+    void format_OtherFormat() {
+        LogFormatter formatter = new LogFormatter("%2$s: %3$s%n");
+        assertEquals("INFO: hello" + System.lineSeparator(), formatter.format(record(Level.INFO, "hello", 0)));
+    }
+}
@@ -0,0 +1,108 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SetTrackerTest {
+
+    /**
+     * Removes the cards of the deck in a random order and compares the count with a full recount after each removal.
+     */
+    private static void assertCountMatchesRecount(int featureSize, int featureCount) {
+        Properties properties = new Properties();
+        properties.put("FeatureSize", Integer.toString(featureSize));
+        properties.put("FeatureCount", Integer.toString(featureCount));
+        Config config = new Config(new UtilImplTest.MockLogger(), properties);
+        Util util = new UtilImpl(config);
+        SetTracker tracker = new SetTracker(config, util);
+
+        List<Integer> cards = IntStream.range(0, config.deckSize).boxed().collect(Collectors.toList());
+        Collections.shuffle(cards, new Random(featureSize * 31L + featureCount));
+        while (!cards.isEmpty()) {
+            assertEquals(util.findSets(cards, Integer.MAX_VALUE).size(), tracker.count(), "cards: " + cards);
+            assertEquals(tracker.count() > 0, tracker.hasSets());
+            tracker.remove(cards.remove(cards.size() - 1));
+        }
+        assertEquals(0, tracker.count());
+    }
+
+    @Test
+    void count_FullDeck() {
+        Config config = new Config(new UtilImplTest.MockLogger(), new Properties());
+        SetTracker tracker = new SetTracker(config, new UtilImpl(config));
+        assertEquals(1080, tracker.count());
+        assertTrue(tracker.hasSets());
+    }
+
+    @Test
+    void remove_MatchesRecount() {
+        assertCountMatchesRecount(3, 4);
+        assertCountMatchesRecount(4, 3);
+        assertCountMatchesRecount(3, 2);
+        assertCountMatchesRecount(2, 4); // recounted by the util
+    }
+
+    @Test
+    void remove_SameCardTwice() {
+        Config config = new Config(new UtilImplTest.MockLogger(), new Properties());
+        SetTracker tracker = new SetTracker(config, new UtilImpl(config));
+        tracker.remove(0);
+        assertEquals(1080 - 40, tracker.count()); // every card is part of 40 sets
+        tracker.remove(0);
+        assertEquals(1080 - 40, tracker.count());
+    }
+
+    @Test
+    void countFullDeckSets_MatchesFindSets() {
+        for (int[] dimensions : new int[][]{{3, 4}, {4, 3}, {3, 2}, {2, 4}, {5, 2}}) {
+            Properties properties = new Properties();
+            properties.put("FeatureSize", Integer.toString(dimensions[0]));
+            properties.put("FeatureCount", Integer.toString(dimensions[1]));
+            Config config = new Config(new UtilImplTest.MockLogger(), properties);
+            List<Integer> deck = IntStream.range(0, config.deckSize).boxed().collect(Collectors.toList());
+            assertEquals(new UtilImpl(config).findSets(deck, Integer.MAX_VALUE).size(),
+                    SetTracker.countFullDeckSets(dimensions[0], dimensions[1]));
+        }
+        assertEquals(-1, SetTracker.countFullDeckSets(10, 30)); // does not fit into a long
+    }
+
+    @Test
+    void hasSets_LargeDeck() {
+        Properties properties = new Properties();
+        properties.put("FeatureSize", "3");
+        properties.put("FeatureCount", "11"); // 177147 cards
+        Config config = new Config(new UtilImplTest.MockLogger(), properties);
+        Util util = new UtilImpl(config);
+        SetTracker tracker = new SetTracker(config, util);
+        assertEquals(-1, tracker.count()); // too many to keep counting
+        assertTrue(tracker.hasSets());
+
+        // collect the witness again and again, so it keeps being replaced by a set of the cards left
+        Set<Integer> removed = new HashSet<>();
+        for (int i = 0; i < 100; ++i) {
+            int[] witness = tracker.witness();
+            assertNotNull(witness);
+            assertTrue(util.testSet(witness));
+            for (int card : witness) {
+                assertTrue(removed.add(card)); // the witness only has cards still in play
+                tracker.remove(card);
+            }
+            assertNull(tracker.witness()); // dropped with its cards
+            assertTrue(tracker.hasSets());
+        }
+        assertEquals(300, removed.size());
+    }
+}
@@ -0,0 +1,43 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ThreadsTest {
+
+    private static void assertRuns(boolean virtual) throws InterruptedException {
+        AtomicBoolean ran = new AtomicBoolean();
+        Thread thread = Threads.newThread(virtual, "player-0", () -> ran.set(true));
+        assertEquals("player-0", thread.getName());
+        assertFalse(thread.isAlive());
+
+        thread.start();
+        thread.join();
+        assertTrue(ran.get());
+    }
+
+    @Test
+    void newThread_Platform() throws InterruptedException {
+        assertRuns(false);
+    }
+
+    @Test
+    void newThread_Virtual() throws InterruptedException {
+        assertRuns(true); // a platform thread if the JVM does not support virtual threads
+    }
+
+    @Test
+    void config_VirtualThreadsOnlyIfSupported() {
+        Properties properties = new Properties();
+        properties.put("VirtualThreads", "True");
+        Config config = new Config(new UtilImplTest.MockLogger(), properties);
+        assertEquals(Threads.virtualSupported(), config.virtualThreads);
+        assertFalse(new Config(new UtilImplTest.MockLogger(), new Properties()).virtualThreads);
+    }
+}
@@ -0,0 +1,128 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Properties;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class UserInterfaceDispatcherTest {
+
+    @Mock
+    private UserInterface ui;
+
+    private UserInterfaceDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        Properties properties = new Properties();
+        properties.put("HumanPlayers", "2");
+        properties.put("Rows", "2");
+        properties.put("Columns", "2");
+        properties.put("TableDelaySeconds", "0");
+        dispatcher = new UserInterfaceDispatcher(new Config(new UtilImplTest.MockLogger(), properties), ui, false);
+    }
+
+    @Test
+    void flush_OnlyChanges() {
+        dispatcher.flush();
+        verifyNoInteractions(ui);
+
+        dispatcher.placeCard(5, 1);
+        dispatcher.placeToken(0, 1);
+        dispatcher.setScore(1, 3);
+        dispatcher.flush();
+        verify(ui).placeCard(5, 1);
+        verify(ui).placeToken(0, 1);
+        verify(ui).setScore(1, 3);
+
+        dispatcher.flush();
+        verifyNoMoreInteractions(ui);
+    }
+
+    @Test
+    void flush_MergesCountdownAndFreeze() {
+        for (long millis = 5000; millis > 0; millis -= 10) {
+            dispatcher.setCountdown(millis, true);
+            dispatcher.setFreeze(0, millis);
+        }
+        dispatcher.setFreeze(0, 0);
+        dispatcher.flush();
+
+        verify(ui).setCountdown(10, true);
+        verify(ui).setFreeze(0, 0);
+        verifyNoMoreInteractions(ui);
+    }
+
+    @Test
+    void flush_MergesRemoveAndPlaceOfTheSameCard() {
+        dispatcher.placeCard(5, 1);
+        dispatcher.placeToken(0, 1);
+        dispatcher.flush();
+
+        // the card is collected and returned to the slot before the next frame: only the token is gone
+        dispatcher.removeTokens(1);
+        dispatcher.removeCard(1);
+        dispatcher.placeCard(5, 1);
+        dispatcher.flush();
+
+        verify(ui).removeToken(0, 1);
+        verify(ui, never()).removeCard(anyInt());
+        verify(ui, never()).setFreeze(anyInt(), anyLong());
+    }
+
+    @Test
+    void dispose_ShowsLastChangesFirst() {
+        dispatcher.setScore(0, 1);
+        dispatcher.announceWinner(new int[]{0});
+        dispatcher.dispose();
+        dispatcher.flush();
+        dispatcher.placeCard(1, 1);
+        dispatcher.flush(); // disposed: nothing is shown
+
+        InOrder order = inOrder(ui);
+        order.verify(ui).setScore(0, 1);
+        order.verify(ui).announceWinner(new int[]{0});
+        order.verify(ui).dispose();
+        verifyNoMoreInteractions(ui);
+    }
+
+    @Test
+    void flush_PacesCardChanges() {
+        Properties properties = new Properties();
+        properties.put("HumanPlayers", "2");
+        properties.put("Rows", "2");
+        properties.put("Columns", "2");
+        properties.put("TableDelaySeconds", "0.1");
+        dispatcher = new UserInterfaceDispatcher(new Config(new UtilImplTest.MockLogger(), properties), ui, false);
+
+        for (int slot = 0; slot < 3; ++slot)
+            dispatcher.placeCard(slot + 10, slot);
+        dispatcher.placeToken(1, 2);
+
+        dispatcher.flush(1000);
+        verify(ui).placeCard(10, 0);
+        verify(ui).placeToken(1, 2); // tokens are not delayed
+
+        dispatcher.flush(1050);
+        verifyNoMoreInteractions(ui);
+
+        dispatcher.flush(1100);
+        verify(ui).placeCard(11, 1);
+        dispatcher.flush(1200);
+        verify(ui).placeCard(12, 2);
+        verifyNoMoreInteractions(ui);
+    }
+}
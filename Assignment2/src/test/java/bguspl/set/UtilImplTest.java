@@ -0,0 +1,136 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.Set;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UtilImplTest {
+
+    private static UtilImpl createUtil(int featureSize, int featureCount) {
+        Properties properties = new Properties();
+        properties.put("FeatureSize", Integer.toString(featureSize));
+        properties.put("FeatureCount", Integer.toString(featureCount));
+        return new UtilImpl(new Config(new MockLogger(), properties));
+    }
+
+    /**
+     * Compares testSet against the feature by feature implementation on every featureSize-combination of the deck.
+     */
+    private static void assertAllCombinationsAgree(int featureSize, int featureCount) {
+        UtilImpl util = createUtil(featureSize, featureCount);
+        int n = (int) Math.pow(featureSize, featureCount);
+        int[] cards = new int[featureSize];
+        for (int i = 0; i < featureSize; ++i)
+            cards[i] = i;
+
+        while (cards[featureSize - 1] < n) {
+            assertEquals(util.testSetByFeatures(cards), util.testSet(cards.clone()));
+
+            int t = featureSize - 1;
+            while (t != 0 && cards[t] == n - featureSize + t) --t;
+            cards[t]++;
+            for (int i = t + 1; i < featureSize; i++) cards[i] = cards[i - 1] + 1;
+        }
+    }
+
+    /**
+     * Compares testSet against the feature by feature implementation on random arrays of any length (with repeats).
+     */
+    private static void assertRandomArraysAgree(int featureSize, int featureCount) {
+        UtilImpl util = createUtil(featureSize, featureCount);
+        int n = (int) Math.pow(featureSize, featureCount);
+        Random random = new Random(featureSize * 31L + featureCount);
+        for (int i = 0; i < 10000; ++i) {
+            int[] cards = random.ints(random.nextInt(featureSize + 2), 0, n).toArray();
+            assertEquals(util.testSetByFeatures(cards), util.testSet(cards), "cards: " + Arrays.toString(cards));
+        }
+    }
+
+    @Test
+    void testSet_DefaultDeck() {
+        UtilImpl util = createUtil(3, 4);
+        assertTrue(util.testSet(new int[]{0, 1, 2}));
+        assertTrue(util.testSet(new int[]{0, 40, 80}));
+        assertFalse(util.testSet(new int[]{0, 1, 3}));
+        assertFalse(util.testSet(new int[]{0, 1, 2, 3}));
+        assertFalse(util.testSet(new int[0]));
+    }
+
+    @Test
+    void testSet_AgreesOnAllCombinations() {
+        assertAllCombinationsAgree(3, 4);
+        assertAllCombinationsAgree(4, 3);
+        assertAllCombinationsAgree(2, 5);
+        assertAllCombinationsAgree(5, 2);
+        assertAllCombinationsAgree(3, 1);
+    }
+
+    @Test
+    void testSet_AgreesOnRandomArrays() {
+        assertRandomArraysAgree(3, 4);
+        assertRandomArraysAgree(4, 4);
+        assertRandomArraysAgree(8, 7);
+        assertRandomArraysAgree(64, 1);
+        assertRandomArraysAgree(33, 2); // too wide for the packed encoding
+    }
+
+    /**
+     * Compares findSets against the combination enumerator on the full deck and on random parts of it.
+     */
+    private static void assertFindSetsAgree(int featureSize, int featureCount) {
+        UtilImpl util = createUtil(featureSize, featureCount);
+        List<Integer> deck = IntStream.range(0, (int) Math.pow(featureSize, featureCount)).boxed().collect(Collectors.toList());
+        assertEquals(setsToStrings(util.findSetsByCombinations(deck, Integer.MAX_VALUE)),
+                setsToStrings(util.findSets(deck, Integer.MAX_VALUE)));
+
+        Random random = new Random(featureSize * 31L + featureCount);
+        for (int i = 0; i < 200; ++i) {
+            Collections.shuffle(deck, random);
+            List<Integer> cards = deck.subList(0, random.nextInt(Math.min(deck.size(), 20)));
+            assertEquals(setsToStrings(util.findSetsByCombinations(cards, Integer.MAX_VALUE)),
+                    setsToStrings(util.findSets(cards, Integer.MAX_VALUE)), "cards: " + cards);
+        }
+    }
+
+    private static Set<String> setsToStrings(List<int[]> sets) {
+        Set<String> strings = sets.stream().map(Arrays::toString).collect(Collectors.toSet());
+        assertEquals(sets.size(), strings.size()); // no set is reported twice
+        return strings;
+    }
+
+    @Test
+    void findSets_AgreesWithCombinations() {
+        assertFindSetsAgree(3, 4);
+        assertFindSetsAgree(4, 3);
+        assertFindSetsAgree(5, 2);
+        assertFindSetsAgree(3, 5);
+        assertFindSetsAgree(2, 4);
+    }
+
+    @Test
+    void findSets_StopsAtCount() {
+        UtilImpl util = createUtil(3, 4);
+        List<Integer> deck = IntStream.range(0, 81).boxed().collect(Collectors.toList());
+        assertEquals(1, util.findSets(deck, 1).size());
+        assertEquals(1080, util.findSets(deck, Integer.MAX_VALUE).size());
+        assertTrue(util.findSets(Arrays.asList(0, 1, 3, 4), 1).isEmpty());
+    }
+
+    static class MockLogger extends Logger {
+        protected MockLogger() {
+            super("", null);
+        }
+    }
+}
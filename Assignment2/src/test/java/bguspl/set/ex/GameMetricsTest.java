@@ -0,0 +1,73 @@
+package bguspl.set.ex;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class GameMetricsTest {
+
+    private GameMetrics metrics;
+    private Player player;
+
+    @BeforeEach
+    void setUp() {
+        player = mock(Player.class);
+        metrics = new GameMetrics(new Player[]{player, null});
+    }
+
+    @AfterEach
+    void tearDown() {
+        metrics.unregister();
+    }
+
+    @Test
+    void counters() {
+        metrics.legalClaims.incrementAndGet();
+        metrics.illegalClaims.incrementAndGet();
+        metrics.illegalClaims.incrementAndGet();
+        metrics.staleClaims.incrementAndGet();
+        metrics.checkLatency.record(2_000);
+
+        assertEquals(3, metrics.getChecks());
+        assertEquals(1, metrics.getStaleClaims());
+        assertEquals(2.0, metrics.getCheckLatencyMaxMicros());
+        assertTrue(metrics.getSummary().startsWith("checks: 3 (legal: 1, illegal: 2), stale claims: 1"));
+    }
+
+    @Test
+    void players() {
+        when(player.droppedKeys()).thenReturn(5L);
+        when(player.queuedKeys()).thenReturn(2);
+
+        assertArrayEquals(new long[]{5, 0}, metrics.getDroppedKeys());
+        assertArrayEquals(new int[]{2, 0}, metrics.getQueuedKeys());
+    }
+
+    @Test
+    void register_ExposesTheMetricsThroughJmx() throws Exception {
+        metrics.reshuffles.incrementAndGet();
+        metrics.register(new TableTest.MockLogger());
+        ObjectName name = metrics.getName();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+        assertTrue(server.isRegistered(name));
+        assertEquals(1L, server.getAttribute(name, "Reshuffles"));
+        assertArrayEquals(new long[]{0, 0}, (long[]) server.getAttribute(name, "DroppedKeys"));
+
+        metrics.unregister();
+        assertFalse(server.isRegistered(name));
+        assertNull(metrics.getName());
+    }
+}
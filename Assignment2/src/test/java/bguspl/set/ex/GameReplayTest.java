@@ -0,0 +1,125 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.GameHost;
+import bguspl.set.UtilImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.logging.Level;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class GameReplayTest {
+
+    private Env env;
+    private Table table;
+
+    @BeforeEach
+    void setUp() {
+        Properties properties = new Properties();
+        properties.put("TableDelaySeconds", "0");
+        properties.put("RandomSeed", "42");
+        TableTest.MockLogger logger = new TableTest.MockLogger();
+        Config config = new Config(logger, properties);
+        env = new Env(logger, config, new TableTest.MockUserInterface(), new UtilImpl(config));
+        table = new Table(env, new Integer[config.tableSize], new Integer[config.deckSize]);
+    }
+
+    @Test
+    void replay_RecordedTableEvents() throws IOException {
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        GameRecorder recorder = new GameRecorder(log, env.config);
+        table.setRecorder(recorder);
+
+        // cards 0, 1 and 2 are a set, card 4 is not part of a set with them
+        table.placeCard(0, 0);
+        table.placeCard(1, 1);
+        table.placeCard(2, 2);
+        table.placeCard(4, 3);
+        table.placeToken(1, 0);
+        table.placeToken(1, 1);
+        table.placeToken(1, 2);
+        recorder.claim(1, new int[]{0, 1, 2}, true);
+        table.removeCard(0);
+        recorder.staleClaim(0);
+        recorder.close();
+        table.placeCard(5, 0); // after the recorder is closed
+
+        GameReplay.Result result = GameReplay.replay(new ByteArrayInputStream(log.toByteArray()));
+        assertEquals(42, result.seed);
+        assertEquals(10, result.events);
+        assertEquals(4, result.deals);
+        assertEquals(1, result.removes);
+        assertEquals(3, result.tokens);
+        assertEquals(1, result.claims);
+        assertEquals(1, result.legalClaims);
+        assertEquals(1, result.staleClaims);
+        assertEquals(0, result.mismatches);
+        assertEquals(1, result.scores[1]);
+    }
+
+    @Test
+    void replay_WrongVerdictIsAMismatch() throws IOException {
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        GameRecorder recorder = new GameRecorder(log, env.config);
+        table.setRecorder(recorder);
+
+        table.placeCard(0, 0);
+        table.placeCard(1, 1);
+        table.placeCard(4, 2);
+        recorder.claim(0, new int[]{0, 1, 4}, true);
+        recorder.close();
+
+        assertEquals(1, GameReplay.replay(new ByteArrayInputStream(log.toByteArray())).mismatches);
+    }
+
+    @Test
+    void replay_NotAnEventLog() {
+        assertThrows(IOException.class, () -> GameReplay.replay(new ByteArrayInputStream(new byte[]{1, 2, 3, 4})));
+    }
+
+    @Test
+    void replay_RecordedGame(@TempDir Path directory) throws Exception {
+        Path file = directory.resolve("game.events");
+        Properties properties = new Properties();
+        properties.put("HumanPlayers", "0");
+        properties.put("ComputerPlayers", "2");
+        properties.put("ComputerStrategy", "Sets");
+        properties.put("ComputerReactionSeconds", "0");
+        properties.put("TurnTimeoutSeconds", "0.5");
+        properties.put("TurnTimeoutWarningSeconds", "0");
+        properties.put("PointFreezeSeconds", "0");
+        properties.put("PenaltyFreezeSeconds", "0");
+        properties.put("TableDelaySeconds", "0");
+        properties.put("EndGamePauseSeconds", "0");
+        properties.put("LogLevel", Level.OFF.getName());
+        properties.put("RandomSeed", "7");
+        properties.put("EventLogFile", file.toString());
+        Config config = new Config(new TableTest.MockLogger(), properties);
+
+        GameHost.TableMetrics metrics;
+        try (GameHost host = new GameHost(new TableTest.MockLogger(), 1)) {
+            metrics = host.awaitTable(host.startTable(config));
+        }
+
+        GameReplay.Result result;
+        try (InputStream in = Files.newInputStream(file)) {
+            result = GameReplay.replay(in);
+        }
+        assertEquals(0, result.mismatches);
+        assertEquals(metrics.sets, result.legalClaims);
+        assertEquals(metrics.checkLatency.count(), result.claims + result.staleClaims);
+        assertEquals(7, result.seed);
+    }
+}
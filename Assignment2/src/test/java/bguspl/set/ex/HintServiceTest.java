@@ -0,0 +1,105 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.UtilImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HintServiceTest {
+
+    private Env env;
+    private Table table;
+    private HintService hints;
+
+    @BeforeEach
+    void setUp() {
+        Properties properties = new Properties();
+        properties.put("TableDelaySeconds", "0");
+        TableTest.MockLogger logger = new TableTest.MockLogger();
+        Config config = new Config(logger, properties);
+        env = new Env(logger, config, new TableTest.MockUserInterface(), new UtilImpl(config));
+        table = new Table(env, new Integer[config.tableSize], new Integer[config.deckSize]);
+        hints = new HintService(env, table);
+    }
+
+    /**
+     * @return - the sets as sorted strings, so they can be compared regardless of order.
+     */
+    private static Set<String> normalize(List<int[]> sets) {
+        Set<String> normalized = new TreeSet<>();
+        for (int[] set : sets) {
+            int[] sorted = set.clone();
+            Arrays.sort(sorted);
+            normalized.add(Arrays.toString(sorted));
+        }
+        return normalized;
+    }
+
+    private void assertSameAsFullSearch(TableSnapshot view) {
+        List<int[]> expected = env.util.findSets(view.cards(), Integer.MAX_VALUE);
+        List<int[]> actual = hints.sets(view);
+        assertEquals(expected.size(), actual.size());
+        assertEquals(normalize(expected), normalize(actual));
+    }
+
+    @Test
+    void sets_EmptyTable() {
+        assertTrue(hints.sets(table.snapshot()).isEmpty());
+    }
+
+    @Test
+    void print_KeepsAChangeWithinTheIntervalPending() {
+        table.placeCard(0, 0);
+        assertEquals(0, hints.print()); // printed
+
+        table.placeCard(1, 1);
+        long due = hints.print(); // held back by the interval, not dropped
+        assertTrue(due > 0 && due <= HintService.HINT_INTERVAL_MILLIS);
+        assertTrue(hints.print() > 0);
+    }
+
+    @Test
+    void sets_FollowsPlacedAndRemovedCards() {
+        Random random = new Random(0);
+        boolean[] used = new boolean[env.config.deckSize];
+        for (int step = 0; step < 500; ++step) {
+            int slot = random.nextInt(env.config.tableSize);
+            if (table.slotToCard[slot] != null) {
+                used[table.slotToCard[slot]] = false;
+                table.removeCard(slot);
+            } else {
+                int card;
+                do card = random.nextInt(env.config.deckSize);
+                while (used[card]);
+                used[card] = true;
+                table.placeCard(card, slot);
+            }
+            // ask only now and then, so several changes are merged into one update
+            if (step % 3 == 0) assertSameAsFullSearch(table.snapshot());
+        }
+    }
+
+    @Test
+    void sets_OlderSnapshot() {
+        for (int slot = 0; slot < env.config.tableSize; ++slot)
+            table.placeCard(slot, slot);
+        TableSnapshot older = table.snapshot();
+        table.removeCard(0);
+        table.placeCard(40, 0);
+        assertSameAsFullSearch(table.snapshot());
+
+        // going back to an older snapshot only searches the slots that differ
+        assertSameAsFullSearch(older);
+    }
+}
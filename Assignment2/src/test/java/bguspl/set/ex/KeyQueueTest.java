@@ -0,0 +1,85 @@
+package bguspl.set.ex;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KeyQueueTest {
+
+    @Test
+    void offer_DropsWhenFull() throws InterruptedException {
+        KeyQueue queue = new KeyQueue(3);
+        assertTrue(queue.offer(1));
+        assertTrue(queue.offer(2));
+        assertTrue(queue.offer(3));
+        assertFalse(queue.offer(4));
+        assertEquals(3, queue.size());
+        assertEquals(1, queue.dropped());
+
+        assertEquals(1, queue.take());
+        assertTrue(queue.offer(5));
+        assertEquals(2, queue.take());
+        assertEquals(3, queue.take());
+        assertEquals(5, queue.take());
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    void take_WrapsAround() throws InterruptedException {
+        KeyQueue queue = new KeyQueue(3);
+        for (int i = 0; i < 100; ++i) {
+            queue.offer(i);
+            queue.offer(-i);
+            assertEquals(i, queue.take());
+            assertEquals(-i, queue.take());
+        }
+        assertEquals(0, queue.dropped());
+    }
+
+    @Test
+    void clear_RemovesAll() {
+        KeyQueue queue = new KeyQueue(3);
+        queue.offer(1);
+        queue.offer(2);
+        assertEquals(2, queue.clear());
+        assertEquals(0, queue.size());
+        assertEquals(0, queue.clear());
+    }
+
+    @Test
+    void take_WaitsForProducer() throws InterruptedException {
+        KeyQueue queue = new KeyQueue(3);
+        int keys = 100000;
+        AtomicInteger sum = new AtomicInteger();
+        Thread consumer = new Thread(() -> {
+            try {
+                for (int i = 0; i < keys; ++i)
+                    sum.addAndGet(queue.take());
+            } catch (InterruptedException ignored) {}
+        });
+        consumer.start();
+
+        long offered = 0;
+        for (int i = 0; i < keys; ) {
+            if (queue.offer(1)) ++i;
+            else Thread.yield();
+            ++offered;
+        }
+        consumer.join();
+        assertEquals(keys, sum.get());
+        assertEquals(offered - keys, queue.dropped());
+    }
+
+    @Test
+    void take_Interrupted() {
+        KeyQueue queue = new KeyQueue(3);
+        Thread.currentThread().interrupt();
+        assertThrows(InterruptedException.class, queue::take);
+        assertFalse(Thread.interrupted());
+    }
+}
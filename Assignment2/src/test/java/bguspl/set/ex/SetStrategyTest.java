@@ -0,0 +1,88 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.UtilImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+class SetStrategyTest {
+
+    private Env env;
+    private Table table;
+    private Player player;
+
+    private void setUp(double errorRate) {
+        Properties properties = new Properties();
+        properties.put("Rows", "2");
+        properties.put("Columns", "2");
+        properties.put("TableDelaySeconds", "0");
+        properties.put("ComputerReactionSeconds", "0");
+        properties.put("ComputerErrorRate", Double.toString(errorRate));
+        properties.put("RandomSeed", "0");
+        TableTest.MockLogger logger = new TableTest.MockLogger();
+        Config config = new Config(logger, properties);
+        env = new Env(logger, config, new TableTest.MockUserInterface(), new UtilImpl(config));
+        table = new Table(env, new Integer[config.tableSize], new Integer[config.deckSize]);
+        player = new Player(env, mock(Dealer.class), table, 0, false);
+
+        // cards 0, 1 and 2 are a set (they differ only in the last feature), card 4 is not part of a set with them
+        table.placeCard(0, 0);
+        table.placeCard(1, 1);
+        table.placeCard(2, 2);
+        table.placeCard(4, 3);
+    }
+
+    @BeforeEach
+    void setUp() {
+        setUp(0);
+    }
+
+    private int[] nextClaim(ComputerStrategy strategy) throws InterruptedException {
+        int[] slots = new int[env.config.featureSize];
+        for (int i = 0; i < slots.length; ++i)
+            slots[i] = strategy.nextKey();
+        Arrays.sort(slots);
+        return slots;
+    }
+
+    @Test
+    void nextKey_PressesTheSet() throws InterruptedException {
+        assertArrayEquals(new int[]{0, 1, 2}, nextClaim(new SetStrategy(env, table, player)));
+    }
+
+    @Test
+    void nextKey_TakesBackOtherTokensFirst() throws InterruptedException {
+        table.placeToken(player.id, 3);
+        table.placeToken(player.id, 1);
+        SetStrategy strategy = new SetStrategy(env, table, player);
+
+        assertEquals(3, strategy.nextKey());
+        int[] rest = {strategy.nextKey(), strategy.nextKey()};
+        Arrays.sort(rest);
+        assertArrayEquals(new int[]{0, 2}, rest);
+    }
+
+    @Test
+    void nextKey_WrongClaims() throws InterruptedException {
+        setUp(1);
+        int[] claim = nextClaim(new SetStrategy(env, table, player));
+        assertEquals(3, claim[claim.length - 1]); // one card was replaced with card 4
+    }
+
+    @Test
+    void nextKey_WaitsForThePlayer() throws InterruptedException {
+        player.keyPressed(0); // not processed by the player thread
+        assertEquals(-1, new SetStrategy(env, table, player).nextKey());
+
+        player.status = PlayerState.PenaltyFreeze;
+        assertEquals(-1, new SetStrategy(env, table, player).nextKey());
+    }
+}
@@ -7,11 +7,16 @@ import bguspl.set.Util;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Properties;
 import java.util.logging.Logger;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class TableTest {
 
@@ -95,6 +100,94 @@ class TableTest {
         placeSomeCardsAndAssert();
     }
 
+    @Test
+    void placeToken_OnlyOnCards() {
+        fillSomeSlots();
+        table.placeToken(0, 1);
+        table.placeToken(0, 0); // empty slot
+
+        assertTrue(table.hasToken(0, 1));
+        assertFalse(table.hasToken(0, 0));
+        assertFalse(table.hasToken(1, 1));
+        assertEquals(1, table.countTokens(0));
+        assertArrayEquals(new int[]{1}, table.getTokens(0));
+    }
+
+    @Test
+    void removeToken_OnlyPlacedTokens() {
+        fillAllSlots();
+        table.placeToken(0, 2);
+
+        assertFalse(table.removeToken(0, 3));
+        assertFalse(table.removeToken(1, 2));
+        assertTrue(table.removeToken(0, 2));
+        assertFalse(table.removeToken(0, 2));
+        assertEquals(0, table.countTokens(0));
+    }
+
+    @Test
+    void placeCard_DropsTokensLeftOnTheSlot() {
+        fillAllSlots();
+        table.placeToken(0, 1);
+        table.placeToken(1, 1);
+        slotToCard[1] = null; // a token that outlived its card (e.g. set while the card was being removed)
+
+        table.placeCard(8, 1);
+
+        assertEquals(0, table.countTokens(0));
+        assertEquals(0, table.countTokens(1));
+    }
+
+    @Test
+    void removeCard_RemovesTokensOfAllPlayers() {
+        fillAllSlots();
+        table.placeToken(0, 1);
+        table.placeToken(0, 3);
+        table.placeToken(1, 1);
+
+        table.removeCard(1);
+
+        assertArrayEquals(new int[]{3}, table.getTokens(0));
+        assertArrayEquals(new int[0], table.getTokens(1));
+        assertNull(slotToCard[1]);
+    }
+
+    @Test
+    void snapshot_VersionedCopyOnWrite() {
+        TableSnapshot empty = table.snapshot();
+        assertEquals(0, empty.version);
+        assertEquals(TableSnapshot.EMPTY, empty.card(2));
+
+        table.placeCard(8, 2);
+        table.placeCard(9, 3);
+        TableSnapshot placed = table.snapshot();
+        assertEquals(2, placed.version);
+        assertEquals(8, placed.card(2));
+        assertEquals(3, placed.slotOf(9));
+        assertEquals(Arrays.asList(8, 9), placed.cards());
+        assertEquals(TableSnapshot.EMPTY, empty.card(2)); // older snapshots never change
+
+        table.removeCard(2);
+        TableSnapshot removed = table.snapshot();
+        assertEquals(3, removed.version);
+        assertEquals(TableSnapshot.EMPTY, removed.card(2));
+        assertEquals(8, placed.card(2));
+    }
+
+    @Test
+    void snapshot_ChangedSince() {
+        table.placeCard(8, 2);
+        table.placeCard(9, 3);
+        long claimVersion = table.snapshot().version;
+
+        table.placeCard(10, 1);
+        assertFalse(table.snapshot().changedSince(new int[]{2, 3}, claimVersion));
+        assertTrue(table.snapshot().changedSince(new int[]{1, 3}, claimVersion));
+
+        table.removeCard(3);
+        assertTrue(table.snapshot().changedSince(new int[]{2, 3}, claimVersion));
+    }
+
     static class MockUserInterface implements UserInterface {
         @Override
         public void dispose() {}
@@ -1,5 +1,8 @@
 package bgu.spl.net.api;
 
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+
 public interface MessageEncoderDecoder<T> {
 
     /**
@@ -11,6 +14,23 @@ public interface MessageEncoderDecoder<T> {
      */
     T decodeNextByte(byte nextByte);
 
+    /**
+     * add all the remaining bytes of a buffer to the decoding process
+     * (the default feeds them to decodeNextByte one by one; decoders of framed messages
+     * should override it and take whole messages out of the buffer at once)
+     *
+     * @param in the bytes to decode, its position is advanced to its limit
+     * @param out receives every message completed by these bytes, in order
+     */
+    default void decode(ByteBuffer in, Consumer<T> out) {
+        while (in.hasRemaining()) {
+            T nextMessage = decodeNextByte(in.get());
+            if (nextMessage != null) {
+                out.accept(nextMessage);
+            }
+        }
+    }
+
     /**
      * encodes the given message to bytes array
      *
@@ -3,6 +3,7 @@ package bgu.spl.net.impl.tftp;
 
 import java.io.*;
 import java.net.Socket;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -95,23 +96,10 @@ public class TftpClient {
             try {
                 //Read input from the server
                 TftpClientEncDec encdec = new TftpClientEncDec();
+                byte[] buf = new byte[1 << 13];
                 int bytesRead;
-                while (!terminate && (bytesRead = serverReader.read()) >= 0) {
-                    byte[] response = encdec.decodeNextByte((byte) bytesRead);
-                    if (response != null) {
-                        if (response.length >= 5 && (response[0] == 0 && response[1] == 3)) { //check if the response is data
-                            handleDataPacket(response);
-                        } else if (response.length >= 4 && (response[0] == 0 && response[1] == 4)) { //check if the response is ack
-                            handleAckPacket(response);
-                        } else if (response.length > 3 && (response[0] == 0 && response[1] == 9)) { //check if the response is bcast
-                            handleBcastPacket(response);
-                        } else if (response.length >= 4 && (response[0] == 0 && response[1] == 5)) { //check if the response is error
-                            handleErrorPacket(response);
-                        }
-                        synchronized (commectionLock) {
-                            commectionLock.notifyAll(); //Notify the keyboard input thread that response was received
-                        }
-                    }
+                while (!terminate && (bytesRead = serverReader.read(buf)) >= 0) {
+                    encdec.decode(ByteBuffer.wrap(buf, 0, bytesRead), this::handleResponse); //whole packets at once
                 }
             } catch (IOException e) {
                 synchronized (commectionLock) {
@@ -120,6 +108,21 @@ public class TftpClient {
                 e.printStackTrace();
             }
         }
+
+        private void handleResponse(byte[] response) {
+            if (response.length >= 5 && (response[0] == 0 && response[1] == 3)) { //check if the response is data
+                handleDataPacket(response);
+            } else if (response.length >= 4 && (response[0] == 0 && response[1] == 4)) { //check if the response is ack
+                handleAckPacket(response);
+            } else if (response.length > 3 && (response[0] == 0 && response[1] == 9)) { //check if the response is bcast
+                handleBcastPacket(response);
+            } else if (response.length >= 4 && (response[0] == 0 && response[1] == 5)) { //check if the response is error
+                handleErrorPacket(response);
+            }
+            synchronized (commectionLock) {
+                commectionLock.notifyAll(); //Notify the keyboard input thread that response was received
+            }
+        }
     }
 
     private void sendCommand(String command) {
@@ -345,7 +348,7 @@ public class TftpClient {
         }
 
         //Check if the block number is valid
-        if (blockNumber != lastBlockNumberReceived + 1) {
+        if (blockNumber != (short) (lastBlockNumberReceived + 1)) { //block numbers wrap around at 16 bits
             //System.out.println("Invalid block number: " + blockNumber);
             pendingRRQFileName = null;
             mode = dataMode.UNDIFFERENTIATED;
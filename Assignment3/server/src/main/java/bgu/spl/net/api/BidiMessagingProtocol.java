@@ -14,4 +14,10 @@ public interface BidiMessagingProtocol<T>  {
      * @return true if the connection should be terminated
      */
     boolean shouldTerminate();
+
+	/**
+	 * Used to release the resources of the protocol once its connection is closed (called once, after the last message)
+	**/
+	default void close() {
+	}
 }
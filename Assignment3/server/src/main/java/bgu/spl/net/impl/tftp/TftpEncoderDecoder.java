@@ -1,7 +1,9 @@
 package bgu.spl.net.impl.tftp;
 
 import bgu.spl.net.api.MessageEncoderDecoder;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
+import java.util.function.Consumer;
 
 public class TftpEncoderDecoder implements MessageEncoderDecoder<byte[]> {
     private final byte[] bytes = new byte[1 << 10]; // Start with 1024 bytes buffer size
@@ -66,6 +68,77 @@ public class TftpEncoderDecoder implements MessageEncoderDecoder<byte[]> {
         return null; // Return null if packet decoding is not complete
     }
 
+    /**
+     * Slices every whole packet out of the buffer in one copy; only a packet split between two reads is
+     * collected in the decoder's own buffer (the rest of a split DATA packet is also copied at once).
+     */
+    @Override
+    public void decode(ByteBuffer in, Consumer<byte[]> out) {
+        while (in.hasRemaining()) {
+            if (length == 0) {
+                int packetLength = packetLength(in);
+                if (packetLength > 0) {
+                    byte[] packet = new byte[packetLength];
+                    in.get(packet);
+                    out.accept(packet);
+                    continue;
+                }
+            } else if (length >= 4 && opcode.getPacketType() == Opcode.PacketType.Data_Packet) {
+                int packetLength = ((short) ((bytes[2] << 8) | (bytes[3] & 0xFF))) + 6;
+                if (packetLength > length && packetLength <= bytes.length) {
+                    int count = Math.min(packetLength - length, in.remaining());
+                    in.get(bytes, length, count);
+                    length += count;
+                    if (length == packetLength) {
+                        resetBuffer();
+                        out.accept(Arrays.copyOfRange(bytes, 0, packetLength));
+                    }
+                    continue;
+                }
+            }
+            byte[] packet = decodeNextByte(in.get()); // a split packet, byte by byte as before
+            if (packet != null) {
+                out.accept(packet);
+            }
+        }
+    }
+
+    /**
+     * Returns the length of the packet at the position of the buffer, or -1 if it is not whole in the buffer
+     * (or is one that only decodeNextByte handles).
+     */
+    private int packetLength(ByteBuffer in) {
+        int start = in.position();
+        if (in.remaining() < 2) return -1;
+        switch (in.getShort(start)) {
+            case 1: case 2: case 7: case 8: case 9: // RRQ, WRQ, LOGRQ, DELRQ, BCAST
+                return terminatedLength(in, start + 2);
+            case 3: // DATA
+                if (in.remaining() < 4) return -1;
+                int packetLength = in.getShort(start + 2) + 6;
+                return packetLength >= 6 && packetLength <= bytes.length && packetLength <= in.remaining() ? packetLength : -1;
+            case 4: // ACK
+                return in.remaining() >= 4 ? 4 : -1;
+            case 5: // ERROR
+                return terminatedLength(in, start + 4);
+            case 6: case 10: // DIRQ, DISC
+                return 2;
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * Returns the length of the packet at the position of the buffer up to the first 0 byte from the given index,
+     * or -1 if there is none yet.
+     */
+    private static int terminatedLength(ByteBuffer in, int from) {
+        for (int i = from; i < in.limit(); ++i) {
+            if (in.get(i) == 0) return i - in.position() + 1;
+        }
+        return -1;
+    }
+
     @Override
     public byte[] encode(byte[] message) {
         return message;
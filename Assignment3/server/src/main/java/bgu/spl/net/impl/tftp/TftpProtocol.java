@@ -3,10 +3,15 @@ package bgu.spl.net.impl.tftp;
 import bgu.spl.net.api.BidiMessagingProtocol;
 import bgu.spl.net.srv.Connections;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Semaphore;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 class Holder {
     static ConcurrentHashMap<Integer, String> ids_login = new ConcurrentHashMap<>();
@@ -21,7 +26,11 @@ class Lock {
 }
 
 public class TftpProtocol implements BidiMessagingProtocol<byte[]>  {
+    // diagnostics go through the logger (off the data path unless enabled), not straight to the console
+    private static final Logger LOGGER = Logger.getLogger(TftpProtocol.class.getName());
     private final int MAX_PACKET_SIZE = 512; // Maximum size of a TFTP packet
+    // Number of DATA blocks of a read sent ahead of the last ACK (-Dtftp.readWindow)
+    private static final int READ_WINDOW = Math.max(1, Integer.getInteger("tftp.readWindow", 8));
     private final Opcode opcode = new Opcode();
     private int connectionId;
     private Connections<byte[]> connections;
@@ -32,6 +41,8 @@ public class TftpProtocol implements BidiMessagingProtocol<byte[]>  {
     private String currentFilename;
     private File filesFolder;
     private int ANKBlockNum;
+    private FileChannel readChannel; // The file of the read in progress (null if none)
+    private boolean lastBlockSent; // Whether the last (short) block of the read was sent
     private Semaphore lock = new Semaphore(1);
     @Override
     public void start(int connectionId, Connections<byte[]> connections) {
@@ -50,6 +61,11 @@ public class TftpProtocol implements BidiMessagingProtocol<byte[]>  {
         this.ANKBlockNum = 0;
     }
 
+    @Override
+    public void close() {
+        closeReadChannel(); // The client is gone in the middle of a read
+    }
+
     @Override
     public boolean shouldTerminate() {
         if (username!=null && !loggedIn) {
@@ -138,7 +154,11 @@ public class TftpProtocol implements BidiMessagingProtocol<byte[]>  {
 
     /**Helper method to send an ERROR packet*/
     private void sendErrorPacket(short errorNumber) {
-        byte[] errorMessage = getErrorMessage(errorNumber);
+        connections.send(connectionId, errorPacket(errorNumber, getErrorMessage(errorNumber)));
+    }
+
+    /**Builds an ERROR packet with the given error code and message*/
+    static byte[] errorPacket(short errorNumber, byte[] errorMessage) {
         int errorMessageLength = errorMessage.length;
 
         byte[] errorPacket = new byte[4 + errorMessageLength + 1];
@@ -148,13 +168,23 @@ public class TftpProtocol implements BidiMessagingProtocol<byte[]>  {
         errorPacket[3] = (byte) errorNumber;
         errorPacket[4 + errorMessageLength] = 0;
         System.arraycopy(errorMessage, 0, errorPacket, 4, errorMessageLength);
-        connections.send(connectionId, errorPacket);
+        return errorPacket;
     }
 
     private void sendDataPacket(byte[] data, int blockNumber) {
         int packetSize = data.length; // Size of DATA packet excluding opcode
         byte[] packet = new byte[packetSize + 6];
+        putDataHeader(packet, packetSize, blockNumber);
 
+        // Copy data into packet
+        System.arraycopy(data, 0, packet, 6, data.length);
+
+        // Send packet to connection
+        connections.send(connectionId, packet);
+    }
+
+    /**Writes the opcode, size and block number of a DATA packet*/
+    private static void putDataHeader(byte[] packet, int packetSize, int blockNumber) {
         packet[0] = 0;
         packet[1] = 3;
 
@@ -165,12 +195,6 @@ public class TftpProtocol implements BidiMessagingProtocol<byte[]>  {
         // Set block number
         packet[4] = (byte) ((blockNumber >> 8) & 0xFF);
         packet[5] = (byte) (blockNumber & 0xFF);
-
-        // Copy data into packet
-        System.arraycopy(data, 0, packet, 6, data.length);
-
-        // Send packet to connection
-        connections.send(connectionId, packet);
     }
 
     private byte[] getErrorMessage(short errorNumber) {
@@ -274,9 +298,9 @@ public class TftpProtocol implements BidiMessagingProtocol<byte[]>  {
 
         if (folder.exists() && folder.isDirectory()) {
             folderPath = folder.getAbsolutePath();
-            System.out.println("Folder exists at: " + folderPath);
+            if (LOGGER.isLoggable(Level.FINE)) LOGGER.fine("Folder exists at: " + folderPath);
         } else {
-            System.out.println("Folder does not exist.");
+            LOGGER.fine("Folder does not exist.");
         }
 
         File fileToWrite = new File(folderPath , filename);
@@ -320,8 +344,8 @@ public class TftpProtocol implements BidiMessagingProtocol<byte[]>  {
             return;
         }
 
-        for (int i = 0; i < message.length; i++)
-            System.out.print(message[i] + " ");
+        if (LOGGER.isLoggable(Level.FINEST))
+            LOGGER.finest("data packet: " + Arrays.toString(message));
 
         try (FileOutputStream file  = new FileOutputStream(currentFilename, true)) {
             file.write(message, 6, packetSize);
@@ -397,6 +421,7 @@ public class TftpProtocol implements BidiMessagingProtocol<byte[]>  {
             return;
         }
 
+        closeReadChannel();
         // Send ACK packet to acknowledge disconnect request
         sendAckPacket((short) 0); // ACK with block number 0
         // Remove user from the set of logged-in users
@@ -427,23 +452,57 @@ public class TftpProtocol implements BidiMessagingProtocol<byte[]>  {
             return;
         }
 
-        // Read file contents
-        try (FileInputStream fis = new FileInputStream(fileToRead)) {
-            byte[] buffer = new byte[MAX_PACKET_SIZE];
-            int bytesRead;
-            lastBlockNumberSent = 1;
-            currentFilename = filename;
-            while ((bytesRead = fis.read(buffer)) != -1) {
-                // Send data packet
-                byte[] data = Arrays.copyOf(buffer, bytesRead);
-                sendDataPacket(data, lastBlockNumberSent);
-                lastBlockNumberSent++;
-            }
+        // Open the file and send the first window of blocks, the rest are sent as the client ACKs them
+        closeReadChannel();
+        try {
+            readChannel = FileChannel.open(fileToRead.toPath(), StandardOpenOption.READ);
         } catch (IOException e) {
-            lastBlockNumberSent = 0;
             sendErrorPacket((short) 2); // Access violation or other error during file reading
-            currentFilename = null;
+            return;
         }
+        currentFilename = filename;
+        lastBlockNumberSent = 0;
+        ANKBlockNum = 0;
+        lastBlockSent = false;
+        sendReadWindow();
+    }
+
+    /**Sends the next blocks of the read in progress, up to READ_WINDOW blocks ahead of the last ACK*/
+    private void sendReadWindow() {
+        while (readChannel != null && !lastBlockSent && lastBlockNumberSent - ANKBlockNum < READ_WINDOW) {
+            // Read the block straight into its packet (the packet is handed over to the connection, so it is not reused)
+            byte[] packet = new byte[MAX_PACKET_SIZE + 6];
+            ByteBuffer data = ByteBuffer.wrap(packet, 6, MAX_PACKET_SIZE);
+            try {
+                while (data.hasRemaining()) {
+                    if (readChannel.read(data) == -1)
+                        break;
+                }
+            } catch (IOException e) {
+                closeReadChannel();
+                sendErrorPacket((short) 2); // Access violation or other error during file reading
+                return;
+            }
+
+            int packetSize = data.position() - 6;
+            lastBlockNumberSent++;
+            lastBlockSent = packetSize < MAX_PACKET_SIZE; // A short (possibly empty) block ends the file
+            putDataHeader(packet, packetSize, lastBlockNumberSent);
+            connections.send(connectionId, lastBlockSent ? Arrays.copyOf(packet, packetSize + 6) : packet);
+        }
+    }
+
+    /**Ends the read in progress (if any)*/
+    private void closeReadChannel() {
+        if (readChannel == null)
+            return;
+        try {
+            readChannel.close();
+        } catch (IOException e) {
+            if (LOGGER.isLoggable(Level.FINE)) LOGGER.fine("closing " + currentFilename + ": " + e);
+        }
+        readChannel = null;
+        currentFilename = null;
     }
 
     private void handleAcknowledgment(byte[] message) {
@@ -452,21 +511,32 @@ public class TftpProtocol implements BidiMessagingProtocol<byte[]>  {
             return;
         }
 
-        short blockNum = (short)((message[2] << 8) | (message[3] & 0xFF));
+        int blockNum = ((message[2] & 0xFF) << 8) | (message[3] & 0xFF);
 
-        if (blockNum != ANKBlockNum + 1) {
-            System.out.println("blockNum: " + blockNum + " ANKBlockNum: " + ANKBlockNum);
+        // Block numbers are 16 bits on the wire, so they wrap around on files over 32MB
+        if (blockNum != ((ANKBlockNum + 1) & 0xFFFF)) {
+            if (LOGGER.isLoggable(Level.FINE)) LOGGER.fine("blockNum: " + blockNum + " ANKBlockNum: " + ANKBlockNum);
+            closeReadChannel(); // The read in progress (if any) can't go on
             sendErrorPacket((short) 4); // Illegal TFTP operation
             return;
         }
 
-        ANKBlockNum = blockNum;
+        ANKBlockNum++;
+
+        // Slide the window of the read in progress
+        if (readChannel != null) {
+            if (lastBlockSent && ANKBlockNum == lastBlockNumberSent)
+                closeReadChannel(); // The client has the whole file
+            else
+                sendReadWindow();
+        }
     }
 
     private void handleErrorPacket(byte[] packet) {
         short errorNumber = (short) ((packet[2] << 8) | (packet[3] & 0xFF));
         String msg = new String(packet, 4, packet.length - 5, StandardCharsets.UTF_8);
-        System.out.println("Error " + errorNumber + " (" + msg + ")");
+        if (LOGGER.isLoggable(Level.INFO)) LOGGER.info("Error " + errorNumber + " (" + msg + ")");
+        closeReadChannel(); // The client gave up the read in progress (if any)
     }
 
 }
\ No newline at end of file
@@ -1,20 +1,54 @@
 package bgu.spl.net.impl.tftp;
 import bgu.spl.net.srv.Server;
+import bgu.spl.net.srv.ServerLimits;
+
+import java.nio.charset.StandardCharsets;
 
 public class TftpServer {
 
+    private static final String BUSY_MESSAGE = "Server busy - too many connections, try again later.";
+
     public static void main(String[] args) {
         //If no port is given, use the default port 7777
         if (args.length == 0) {
             String port = "7777";
             args = new String[]{port};
         }
+        int port = Integer.parseInt(args[0]);
 
-        //Initialize the server
-        Server.threadPerClient(
-                (Integer.parseInt(args[0])), //port
-                () -> new TftpProtocol(), //protocol factory
-                TftpEncoderDecoder::new
-        ).serve();
+        //Initialize the server: thread per client by default, "<port> reactor [threads]" for a reactor,
+        //or "<port> virtual" for a virtual thread per client (JDK 21+)
+        String mode = args.length > 1 ? args[1] : "";
+        if (mode.equals("virtual") && !Server.supportsVirtualThreads()) {
+            System.out.println("Virtual threads need JDK 21+, using a thread per client");
+            mode = "";
+        }
+
+        if (mode.equals("virtual")) {
+            Server.virtualThreadPerClient(
+                    port,
+                    () -> new TftpProtocol(), //protocol factory
+                    TftpEncoderDecoder::new,
+                    ServerLimits.fromSystemProperties(),
+                    TftpProtocol.errorPacket((short) 0, BUSY_MESSAGE.getBytes(StandardCharsets.UTF_8))
+            ).serve();
+        } else if (mode.equals("reactor")) {
+            int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+            Server.reactor(
+                    threads,
+                    port,
+                    () -> new TftpProtocol(), //protocol factory
+                    TftpEncoderDecoder::new
+            ).serve();
+        } else {
+            //Clients over the limits (-Dserver.maxConnections etc.) get an ERROR packet and are disconnected
+            Server.threadPerClient(
+                    port,
+                    () -> new TftpProtocol(), //protocol factory
+                    TftpEncoderDecoder::new,
+                    ServerLimits.fromSystemProperties(),
+                    TftpProtocol.errorPacket((short) 0, BUSY_MESSAGE.getBytes(StandardCharsets.UTF_8))
+            ).serve();
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,92 @@
+package bgu.spl.net.srv;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A fixed pool of threads that runs the tasks of each actor (e.g. a connection) one at a time, in the order they were
+ * submitted, while the tasks of different actors run in parallel.
+ */
+public class ActorThreadPool {
+
+    private final Map<Object, Queue<Runnable>> acts = new WeakHashMap<>();
+    private final ReadWriteLock actsRWLock = new ReentrantReadWriteLock();
+    private final Set<Object> playingNow = ConcurrentHashMap.newKeySet();
+    private final ExecutorService threads;
+
+    /**
+     * @param threads the number of threads in the pool
+     */
+    public ActorThreadPool(int threads) {
+        AtomicInteger count = new AtomicInteger();
+        this.threads = Executors.newFixedThreadPool(threads,
+                runnable -> new Thread(runnable, "actor-worker-" + count.incrementAndGet()));
+    }
+
+    /**
+     * Runs a task of an actor after all the tasks submitted before it for the same actor.
+     *
+     * @param act the actor
+     * @param r   the task
+     */
+    public void submit(Object act, Runnable r) {
+        synchronized (act) {
+            if (!playingNow.contains(act)) {
+                playingNow.add(act);
+                execute(r, act);
+            } else {
+                pendingRunnablesOf(act).add(r);
+            }
+        }
+    }
+
+    /**
+     * Stops the threads (tasks that did not start are dropped).
+     */
+    public void shutdown() {
+        threads.shutdownNow();
+    }
+
+    private Queue<Runnable> pendingRunnablesOf(Object act) {
+        actsRWLock.readLock().lock();
+        Queue<Runnable> pendingRunnables = acts.get(act);
+        actsRWLock.readLock().unlock();
+
+        if (pendingRunnables == null) {
+            actsRWLock.writeLock().lock();
+            acts.put(act, pendingRunnables = new ArrayDeque<>());
+            actsRWLock.writeLock().unlock();
+        }
+        return pendingRunnables;
+    }
+
+    private void execute(Runnable r, Object act) {
+        threads.execute(() -> {
+            try {
+                r.run();
+            } finally {
+                complete(act);
+            }
+        });
+    }
+
+    private void complete(Object act) {
+        synchronized (act) {
+            Queue<Runnable> pending = pendingRunnablesOf(act);
+            if (pending.isEmpty()) {
+                playingNow.remove(act);
+            } else {
+                execute(pending.poll(), act);
+            }
+        }
+    }
+}
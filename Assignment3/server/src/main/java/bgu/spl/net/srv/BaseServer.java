@@ -5,10 +5,15 @@ import bgu.spl.net.api.BidiMessagingProtocol; // changed**
 import bgu.spl.net.impl.tftp.TftpConnections;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.ServerSocket;
 import java.net.Socket;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
 
 public abstract class BaseServer<T> implements Server<T> {
@@ -18,46 +23,82 @@ public abstract class BaseServer<T> implements Server<T> {
     private final Supplier<MessageEncoderDecoder<T>> encdecFactory;
     private ServerSocket sock;
     private final Connections<T> connections;
-    private int idCounter;
+    private final AtomicInteger idCounter = new AtomicInteger();
+    /** The ids of the connected clients (an id is reused only after its client is gone) */
+    private final Set<Integer> activeIds = ConcurrentHashMap.newKeySet();
+
+    /** The admission limits and the message sent to a client that is over them (null to just close it) */
+    private final ServerLimits limits;
+    private final T rejection;
+    private final AtomicLong rejectedConnections = new AtomicLong();
+
+    /** The time the next connection may be accepted at (if the accept rate is limited) */
+    private long nextAcceptNanos;
 
     public BaseServer(
             int port,
             Supplier<BidiMessagingProtocol<T>> protocolFactory,
             Supplier<MessageEncoderDecoder<T>> encdecFactory) {
+        this(port, protocolFactory, encdecFactory, ServerLimits.UNLIMITED, null);
+    }
+
+    public BaseServer(
+            int port,
+            Supplier<BidiMessagingProtocol<T>> protocolFactory,
+            Supplier<MessageEncoderDecoder<T>> encdecFactory,
+            ServerLimits limits,
+            T rejection) {
 
         this.port = port;
         this.protocolFactory = protocolFactory;
         this.encdecFactory = encdecFactory;
         this.sock = null;
         this.connections = new TftpConnections<>();
-        idCounter = 0;
+        this.limits = limits;
+        this.rejection = rejection;
+        nextAcceptNanos = System.nanoTime();
 
     }
 
     @Override
     public void serve() {
-        try (ServerSocket serverSock = new ServerSocket(port)) {
-            System.out.println("Server started");
+        try (ServerSocket serverSock = new ServerSocket(port, limits.backlog)) {
+            System.out.println("Server started (" + limits + ")");
 
             this.sock = serverSock;
 
             while (!Thread.currentThread().isInterrupted()) {
 
+                paceAccepts();
                 Socket clientSock = serverSock.accept();
 
+                if (limits.maxConnections > 0 && activeIds.size() >= limits.maxConnections) {
+                    reject(clientSock);
+                    continue;
+                }
+
+                int connectionId = nextConnectionId();
                 BlockingConnectionHandler<T> handler = new BlockingConnectionHandler<>(
                         clientSock,
                         encdecFactory.get(),
                         protocolFactory.get(),
                         connections,
-                        ++idCounter);
-
-                execute(handler);
+                        connectionId,
+                        () -> activeIds.remove(connectionId));
+
+                try {
+                    execute(handler);
+                } catch (RejectedExecutionException ex) {
+                    activeIds.remove(connectionId);
+                    reject(clientSock);
+                }
             }
         } catch (IOException ignore) {
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
         }
 
-        System.out.println("server closed!!!");
+        System.out.println("server closed!!! (rejected connections: " + rejectedConnections.get() + ")");
     }
 
     @Override
@@ -66,6 +107,63 @@ public abstract class BaseServer<T> implements Server<T> {
             sock.close();
     }
 
+    /**
+     * @return the number of clients connected now
+     */
+    public int getActiveConnections() {
+        return activeIds.size();
+    }
+
+    /**
+     * @return the number of clients rejected since the server started
+     */
+    public long getRejectedConnections() {
+        return rejectedConnections.get();
+    }
+
     protected abstract void execute(BlockingConnectionHandler<T>  handler);
 
+    /**
+     * Sends the rejection message to a client over the limits and closes its connection.
+     */
+    private void reject(Socket clientSock) {
+        rejectedConnections.incrementAndGet();
+        try (Socket sock = clientSock) {
+            if (rejection != null) {
+                OutputStream out = sock.getOutputStream();
+                out.write(encdecFactory.get().encode(rejection));
+                out.flush();
+            }
+            sock.shutdownOutput();
+        } catch (IOException ignore) {
+        }
+    }
+
+    /**
+     * Waits until the next connection may be accepted: the accept rate is limited to limits.acceptsPerSecond, with
+     * bursts of up to one second's worth of connections. Clients that come faster wait in the backlog.
+     */
+    private void paceAccepts() throws InterruptedException {
+        if (limits.acceptsPerSecond == 0) return;
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / limits.acceptsPerSecond);
+        long now = System.nanoTime();
+        nextAcceptNanos = Math.max(nextAcceptNanos, now - TimeUnit.SECONDS.toNanos(1));
+        long wait = nextAcceptNanos - now;
+        if (wait > 0) TimeUnit.NANOSECONDS.sleep(wait);
+        nextAcceptNanos += interval;
+    }
+
+    /**
+     * Takes a connection id for a new client: the next positive id (wrapping around after Integer.MAX_VALUE) that no
+     * connected client holds, so a long-lived connection is never overwritten by a new one after a wrap.
+     * The id is held until the client's handler exits.
+     */
+    private int nextConnectionId() {
+        while (true) {
+            int id = idCounter.updateAndGet(last -> last == Integer.MAX_VALUE ? 1 : last + 1);
+            if (activeIds.add(id))
+                return id;
+        }
+    }
+
 }
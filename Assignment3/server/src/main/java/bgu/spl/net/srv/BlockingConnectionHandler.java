@@ -6,6 +6,7 @@ import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.net.Socket;
+import java.nio.ByteBuffer;
 
 public class BlockingConnectionHandler<T> implements Runnable, ConnectionHandler<T> {
 
@@ -17,20 +18,31 @@ public class BlockingConnectionHandler<T> implements Runnable, ConnectionHandler
     private BufferedOutputStream out;
     private volatile boolean connected = true;
     private final int connectionId;
+    private final Runnable onExit;
 
     public BlockingConnectionHandler(Socket sock, MessageEncoderDecoder<T> reader, BidiMessagingProtocol<T> protocol,
                                      Connections<T> connections, int connectionId) {
+        this(sock, reader, protocol, connections, connectionId, () -> {});
+    }
+
+    /**
+     * @param onExit runs once when the handler is done with the client
+     */
+    public BlockingConnectionHandler(Socket sock, MessageEncoderDecoder<T> reader, BidiMessagingProtocol<T> protocol,
+                                     Connections<T> connections, int connectionId, Runnable onExit) {
         this.sock = sock;
         this.encdec = reader;
         this.protocol = protocol;
         this.connections = connections;
         this.connectionId = connectionId;
+        this.onExit = onExit;
     }
 
     @Override
     public void run() {
         try (Socket sock = this.sock) {
             int read;
+            byte[] buf = new byte[1 << 13];
 
             in = new BufferedInputStream(sock.getInputStream());
             out = new BufferedOutputStream(sock.getOutputStream());
@@ -38,16 +50,20 @@ public class BlockingConnectionHandler<T> implements Runnable, ConnectionHandler
             protocol.start(connectionId, connections);
             connections.connect(connectionId, this);
 
-            while (!protocol.shouldTerminate() && connected && (read = in.read()) >= 0) {
-                T nextMessage = encdec.decodeNextByte((byte) read);
-                if (nextMessage != null) {
-                    protocol.process(nextMessage);
-                }
+            while (!protocol.shouldTerminate() && connected && (read = in.read(buf)) >= 0) {
+                encdec.decode(ByteBuffer.wrap(buf, 0, read), nextMessage -> {
+                    if (!protocol.shouldTerminate()) {
+                        protocol.process(nextMessage);
+                    }
+                });
             }
             connections.disconnect(connectionId);
         } catch (IOException ex) {
             connections.disconnect(connectionId);
             ex.printStackTrace();
+        } finally {
+            protocol.close();
+            onExit.run();
         }
 
     }
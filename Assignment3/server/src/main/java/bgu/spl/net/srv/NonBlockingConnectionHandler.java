@@ -0,0 +1,154 @@
+package bgu.spl.net.srv;
+
+import bgu.spl.net.api.BidiMessagingProtocol;
+import bgu.spl.net.api.MessageEncoderDecoder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The connection handler of the reactor: the reactor thread reads the bytes of the client into a pooled direct buffer
+ * and writes the queued messages, while the bytes read are decoded and processed on the worker pool.
+ */
+public class NonBlockingConnectionHandler<T> implements ConnectionHandler<T> {
+
+    private static final int BUFFER_ALLOCATION_SIZE = 1 << 13; // 8k
+    private static final ConcurrentLinkedQueue<ByteBuffer> BUFFER_POOL = new ConcurrentLinkedQueue<>();
+
+    private final BidiMessagingProtocol<T> protocol;
+    private final MessageEncoderDecoder<T> encdec;
+    private final Queue<ByteBuffer> writeQueue = new ConcurrentLinkedQueue<>();
+    private final SocketChannel chan;
+    private final Reactor<T> reactor;
+    private final Connections<T> connections;
+    private final int connectionId;
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    public NonBlockingConnectionHandler(MessageEncoderDecoder<T> reader, BidiMessagingProtocol<T> protocol,
+                                        SocketChannel chan, Reactor<T> reactor, Connections<T> connections,
+                                        int connectionId) {
+        this.chan = chan;
+        this.encdec = reader;
+        this.protocol = protocol;
+        this.reactor = reactor;
+        this.connections = connections;
+        this.connectionId = connectionId;
+    }
+
+    /**
+     * Starts the protocol of the connection and makes the connection reachable through the connections.
+     */
+    void start() {
+        protocol.start(connectionId, connections);
+        connections.connect(connectionId, this);
+    }
+
+    /**
+     * Reads the available bytes of the client (on the reactor thread).
+     *
+     * @return the task that decodes and processes the bytes (on the worker pool), or null if the client disconnected
+     */
+    public Runnable continueRead() {
+        ByteBuffer buf = leaseBuffer();
+
+        boolean success = false;
+        try {
+            success = chan.read(buf) != -1;
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        }
+
+        if (success) {
+            buf.flip();
+            return () -> {
+                try {
+                    encdec.decode(buf, nextMessage -> {
+                        if (!protocol.shouldTerminate()) {
+                            protocol.process(nextMessage);
+                        }
+                    });
+                } finally {
+                    releaseBuffer(buf);
+                }
+                if (protocol.shouldTerminate() && writeQueue.isEmpty()) close();
+            };
+        } else {
+            releaseBuffer(buf);
+            close();
+            return null;
+        }
+    }
+
+    /**
+     * Writes the queued messages as far as the socket accepts them (on the reactor thread).
+     */
+    public void continueWrite() {
+        while (!writeQueue.isEmpty()) {
+            try {
+                ByteBuffer top = writeQueue.peek();
+                chan.write(top);
+                if (top.hasRemaining()) {
+                    return;
+                } else {
+                    writeQueue.remove();
+                }
+            } catch (IOException ex) {
+                ex.printStackTrace();
+                close();
+                return;
+            }
+        }
+
+        if (protocol.shouldTerminate()) close();
+        else reactor.updateInterestedOps(chan, SelectionKey.OP_READ);
+    }
+
+    public boolean isClosed() {
+        return !chan.isOpen();
+    }
+
+    /**
+     * Closes the connection (from any thread); the protocol is closed on the worker pool after the messages of the
+     * client that are still being processed.
+     */
+    @Override
+    public void close() {
+        connections.disconnect(connectionId);
+        try {
+            chan.close();
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        }
+        if (closed.compareAndSet(false, true))
+            reactor.submit(this, protocol::close);
+    }
+
+    /**
+     * Queues a message to the client (from any thread); the reactor thread writes it when the socket is writable.
+     */
+    @Override
+    public void send(T msg) {
+        if (msg == null || isClosed()) return;
+        writeQueue.add(ByteBuffer.wrap(encdec.encode(msg)));
+        reactor.updateInterestedOps(chan, SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+    }
+
+    private static ByteBuffer leaseBuffer() {
+        ByteBuffer buff = BUFFER_POOL.poll();
+        if (buff == null) {
+            return ByteBuffer.allocateDirect(BUFFER_ALLOCATION_SIZE);
+        }
+
+        buff.clear();
+        return buff;
+    }
+
+    private static void releaseBuffer(ByteBuffer buff) {
+        BUFFER_POOL.add(buff);
+    }
+}
@@ -0,0 +1,163 @@
+package bgu.spl.net.srv;
+
+import bgu.spl.net.api.BidiMessagingProtocol;
+import bgu.spl.net.api.MessageEncoderDecoder;
+import bgu.spl.net.impl.tftp.TftpConnections;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * A server where one thread (the reactor) waits on a selector for all the connections, so idle clients cost no thread:
+ * it accepts the clients and does all the non-blocking reads and writes, and the bytes read are decoded and processed
+ * on a pool of worker threads, one task at a time per connection (so the messages of a client are processed in order).
+ */
+public class Reactor<T> implements Server<T> {
+
+    private final int port;
+    private final Supplier<BidiMessagingProtocol<T>> protocolFactory;
+    private final Supplier<MessageEncoderDecoder<T>> readerFactory;
+    private final ActorThreadPool pool;
+    private final Connections<T> connections;
+    private Selector selector;
+    private int idCounter;
+
+    private Thread selectorThread;
+    private final ConcurrentLinkedQueue<Runnable> selectorTasks = new ConcurrentLinkedQueue<>();
+
+    public Reactor(
+            int numThreads,
+            int port,
+            Supplier<BidiMessagingProtocol<T>> protocolFactory,
+            Supplier<MessageEncoderDecoder<T>> readerFactory) {
+
+        this.pool = new ActorThreadPool(numThreads);
+        this.port = port;
+        this.protocolFactory = protocolFactory;
+        this.readerFactory = readerFactory;
+        this.connections = new TftpConnections<>();
+        idCounter = 0;
+    }
+
+    @Override
+    public void serve() {
+        selectorThread = Thread.currentThread();
+        try (Selector selector = Selector.open();
+             ServerSocketChannel serverSock = ServerSocketChannel.open()) {
+
+            this.selector = selector; // just to be able to close
+
+            serverSock.bind(new InetSocketAddress(port));
+            serverSock.configureBlocking(false);
+            serverSock.register(selector, SelectionKey.OP_ACCEPT);
+            System.out.println("Server started");
+
+            while (!Thread.currentThread().isInterrupted()) {
+
+                selector.select();
+                runSelectionThreadTasks();
+
+                for (SelectionKey key : selector.selectedKeys()) {
+
+                    if (!key.isValid()) {
+                        continue;
+                    } else if (key.isAcceptable()) {
+                        handleAccept(serverSock, selector);
+                    } else {
+                        handleReadWrite(key);
+                    }
+                }
+
+                selector.selectedKeys().clear(); // clear the selected keys set so that we can know about new events
+
+            }
+
+        } catch (ClosedSelectorException ex) {
+            // do nothing - server was requested to be closed
+        } catch (IOException ex) {
+            // this is an error
+            ex.printStackTrace();
+        }
+
+        System.out.println("server closed!!!");
+        pool.shutdown();
+    }
+
+    /**
+     * Changes the events the reactor waits for on a connection (from any thread).
+     */
+    void updateInterestedOps(SocketChannel chan, int ops) {
+        final SelectionKey key = chan.keyFor(selector);
+        if (key == null) return;
+        if (Thread.currentThread() == selectorThread) {
+            key.interestOps(ops);
+        } else {
+            selectorTasks.add(() -> {
+                if (key.isValid()) key.interestOps(ops);
+            });
+            selector.wakeup();
+        }
+    }
+
+    /**
+     * Runs a task of a connection on the worker pool after the tasks submitted before it for that connection
+     * (right away if the pool is shut down).
+     */
+    void submit(NonBlockingConnectionHandler<T> handler, Runnable task) {
+        try {
+            pool.submit(handler, task);
+        } catch (RejectedExecutionException ex) {
+            task.run();
+        }
+    }
+
+    private void handleAccept(ServerSocketChannel serverChan, Selector selector) throws IOException {
+        SocketChannel clientChan = serverChan.accept();
+        if (clientChan == null) return;
+        clientChan.configureBlocking(false);
+        final NonBlockingConnectionHandler<T> handler = new NonBlockingConnectionHandler<>(
+                readerFactory.get(),
+                protocolFactory.get(),
+                clientChan,
+                this,
+                connections,
+                ++idCounter);
+        clientChan.register(selector, SelectionKey.OP_READ, handler);
+        handler.start();
+    }
+
+    private void handleReadWrite(SelectionKey key) {
+        @SuppressWarnings("unchecked")
+        NonBlockingConnectionHandler<T> handler = (NonBlockingConnectionHandler<T>) key.attachment();
+
+        if (key.isReadable()) {
+            Runnable task = handler.continueRead();
+            if (task != null) {
+                pool.submit(handler, task);
+            }
+        }
+
+        if (key.isValid() && key.isWritable()) {
+            handler.continueWrite();
+        }
+    }
+
+    private void runSelectionThreadTasks() {
+        while (!selectorTasks.isEmpty()) {
+            selectorTasks.remove().run();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        selector.close();
+    }
+}
@@ -3,6 +3,8 @@ package bgu.spl.net.srv;
 import bgu.spl.net.api.MessageEncoderDecoder;
 import bgu.spl.net.api.BidiMessagingProtocol; //changed**
 import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Supplier;
 
 public interface Server<T> extends Closeable {
@@ -14,6 +16,7 @@ public interface Server<T> extends Closeable {
 
     /**
      *This function returns a new instance of a thread per client pattern server
+     * (clients are admitted without limits, see the overload with {@link ServerLimits})
      * @param port The port for the server socket
      * @param protocolFactory A factory that creats new MessagingProtocols
      * @param encoderDecoderFactory A factory that creats new MessageEncoderDecoder
@@ -24,15 +27,117 @@ public interface Server<T> extends Closeable {
             int port,
             Supplier<BidiMessagingProtocol<T> > protocolFactory,
             Supplier<MessageEncoderDecoder<T> > encoderDecoderFactory) {
+        return threadPerClient(port, protocolFactory, encoderDecoderFactory, ServerLimits.UNLIMITED, null);
+    }
 
-        return new BaseServer<T>(port, protocolFactory, encoderDecoderFactory) {
+    /**
+     *This function returns a new instance of a thread per client pattern server that admits clients within limits,
+     * and runs them on a bounded pool of threads
+     * @param port The port for the server socket
+     * @param protocolFactory A factory that creats new MessagingProtocols
+     * @param encoderDecoderFactory A factory that creats new MessageEncoderDecoder
+     * @param limits The admission limits of the server
+     * @param rejection The message sent to a client over the limits before it is disconnected (null for none)
+     * @param <T> The Message Object for the protocol
+     * @return A new Thread per client server (with the counts of its active and rejected connections)
+     */
+    public static <T> BaseServer<T>  threadPerClient(
+            int port,
+            Supplier<BidiMessagingProtocol<T> > protocolFactory,
+            Supplier<MessageEncoderDecoder<T> > encoderDecoderFactory,
+            ServerLimits limits,
+            T rejection) {
+
+        ExecutorService workers = limits.newWorkerPool();
+        return new BaseServer<T>(port, protocolFactory, encoderDecoderFactory, limits, rejection) {
             @Override
             protected void execute(BlockingConnectionHandler<T>  handler) {
-                new Thread(handler).start();
+                workers.execute(handler);
+            }
+
+            @Override
+            public void close() throws IOException {
+                super.close();
+                workers.shutdown();
+            }
+        };
+
+    }
+
+    /**
+     * This function returns a new instance of a thread per client pattern server where every client gets a virtual
+     * thread (JDK 21+), so the blocking handlers scale to many more connections than platform threads allow.
+     * Clients are admitted without limits (see the overload with {@link ServerLimits})
+     * @param port The port for the server socket
+     * @param protocolFactory A factory that creats new MessagingProtocols
+     * @param encoderDecoderFactory A factory that creats new MessageEncoderDecoder
+     * @param <T> The Message Object for the protocol
+     * @return A new virtual thread per client server
+     * @throws UnsupportedOperationException if the running JVM has no virtual threads
+     */
+    public static <T> Server<T> virtualThreadPerClient(
+            int port,
+            Supplier<BidiMessagingProtocol<T>> protocolFactory,
+            Supplier<MessageEncoderDecoder<T>> encoderDecoderFactory) {
+        return virtualThreadPerClient(port, protocolFactory, encoderDecoderFactory, ServerLimits.UNLIMITED, null);
+    }
+
+    /**
+     * This function returns a new instance of a virtual thread per client pattern server that admits clients within
+     * limits (the threads themselves need no bound)
+     * @param port The port for the server socket
+     * @param protocolFactory A factory that creats new MessagingProtocols
+     * @param encoderDecoderFactory A factory that creats new MessageEncoderDecoder
+     * @param limits The admission limits of the server
+     * @param rejection The message sent to a client over the limits before it is disconnected (null for none)
+     * @param <T> The Message Object for the protocol
+     * @return A new virtual thread per client server (with the counts of its active and rejected connections)
+     * @throws UnsupportedOperationException if the running JVM has no virtual threads
+     */
+    public static <T> BaseServer<T> virtualThreadPerClient(
+            int port,
+            Supplier<BidiMessagingProtocol<T>> protocolFactory,
+            Supplier<MessageEncoderDecoder<T>> encoderDecoderFactory,
+            ServerLimits limits,
+            T rejection) {
+
+        ExecutorService virtualThreads = VirtualThreads.newPerTaskExecutor();
+        return new BaseServer<T>(port, protocolFactory, encoderDecoderFactory, limits, rejection) {
+            @Override
+            protected void execute(BlockingConnectionHandler<T> handler) {
+                virtualThreads.execute(handler);
+            }
+
+            @Override
+            public void close() throws IOException {
+                super.close();
+                virtualThreads.shutdown();
             }
         };
+    }
 
+    /**
+     * @return true iff the running JVM can run {@link #virtualThreadPerClient}
+     */
+    public static boolean supportsVirtualThreads() {
+        return VirtualThreads.isSupported();
     }
 
+    /**
+     * This function returns a new instance of a reactor pattern server
+     * @param nthreads Number of threads available for protocol processing
+     * @param port The port for the server socket
+     * @param protocolFactory A factory that creats new MessagingProtocols
+     * @param encoderDecoderFactory A factory that creats new MessageEncoderDecoder
+     * @param <T> The Message Object for the protocol
+     * @return A new reactor server
+     */
+    public static <T> Server<T> reactor(
+            int nthreads,
+            int port,
+            Supplier<BidiMessagingProtocol<T>> protocolFactory,
+            Supplier<MessageEncoderDecoder<T>> encoderDecoderFactory) {
+        return new Reactor<T>(nthreads, port, protocolFactory, encoderDecoderFactory);
+    }
 
 }
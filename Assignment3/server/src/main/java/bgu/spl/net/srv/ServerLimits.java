@@ -0,0 +1,75 @@
+package bgu.spl.net.srv;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The admission limits of a server: how many clients may be connected at once, how many pending connections the OS
+ * may queue, and how fast new connections are accepted.
+ */
+public class ServerLimits {
+
+    /**
+     * No limits (every client is accepted as soon as it connects).
+     */
+    public static final ServerLimits UNLIMITED = new ServerLimits(0, 0, 0);
+
+    /**
+     * The maximum number of connected clients (0 for no limit); clients over the limit are rejected.
+     */
+    public final int maxConnections;
+
+    /**
+     * The maximum number of connections the OS queues before they are accepted (0 for the default).
+     */
+    public final int backlog;
+
+    /**
+     * The maximum rate of accepted connections (0 for no limit); faster clients wait in the backlog.
+     */
+    public final double acceptsPerSecond;
+
+    public ServerLimits(int maxConnections, int backlog, double acceptsPerSecond) {
+        this.maxConnections = Math.max(0, maxConnections);
+        this.backlog = Math.max(0, backlog);
+        this.acceptsPerSecond = Math.max(0, acceptsPerSecond);
+    }
+
+    /**
+     * Reads the limits from the system properties server.maxConnections (default 1000), server.backlog (default 50)
+     * and server.acceptsPerSecond (default 0, no limit).
+     */
+    public static ServerLimits fromSystemProperties() {
+        return new ServerLimits(
+                Integer.getInteger("server.maxConnections", 1000),
+                Integer.getInteger("server.backlog", 50),
+                Double.parseDouble(System.getProperty("server.acceptsPerSecond", "0")));
+    }
+
+    /**
+     * Creates the pool that runs the connection handlers: at most maxConnections threads (idle ones end after a
+     * minute), with room for as many waiting handlers, so a burst of clients cannot exhaust the threads of the JVM.
+     * Handlers over the bound are rejected with a RejectedExecutionException.
+     */
+    public ExecutorService newWorkerPool() {
+        ThreadPoolExecutor pool;
+        if (maxConnections == 0) {
+            pool = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS, new SynchronousQueue<>());
+        } else {
+            pool = new ThreadPoolExecutor(maxConnections, maxConnections, 60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(maxConnections));
+            pool.allowCoreThreadTimeOut(true);
+        }
+        return pool;
+    }
+
+    @Override
+    public String toString() {
+        return "max connections: " + (maxConnections == 0 ? "unlimited" : maxConnections)
+                + ", backlog: " + backlog
+                + ", accepts per second: " + (acceptsPerSecond == 0 ? "unlimited" : acceptsPerSecond);
+    }
+}
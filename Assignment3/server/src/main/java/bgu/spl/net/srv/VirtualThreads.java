@@ -0,0 +1,42 @@
+package bgu.spl.net.srv;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Access to the virtual threads of JDK 21+ that still compiles for Java 8: the executor is looked up at runtime,
+ * so the classic build and the jdk21 profile share the same sources.
+ */
+final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * @return true iff the running JVM has virtual threads
+     */
+    static boolean isSupported() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * @return an executor that starts a new virtual thread for every task
+     * @throws UnsupportedOperationException if the running JVM is older than JDK 21
+     */
+    static ExecutorService newPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException ex) {
+            throw new UnsupportedOperationException(
+                    "virtual threads need JDK 21+ (running " + System.getProperty("java.version") + ")", ex);
+        } catch (IllegalAccessException | InvocationTargetException ex) {
+            throw new IllegalStateException("cannot create a virtual thread executor", ex);
+        }
+    }
+}